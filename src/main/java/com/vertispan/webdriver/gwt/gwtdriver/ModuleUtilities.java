@@ -20,7 +20,14 @@ package com.vertispan.webdriver.gwt.gwtdriver;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -31,12 +38,35 @@ import java.util.logging.Logger;
 public class ModuleUtilities {
   private static final Logger LOGGER = Logger.getLogger(ModuleUtilities.class.getName());
   private static final String NO_DEFAULT_ERROR = "error: no default module";
+  private static final String NO_MODULE_ERROR = "error: module not present";
+  private static final String NO_SYNC_ERROR = "error: module has no synchronous function";
+  private static final String STALE_ID_ERROR = "error: stale method id";
+  private static final String BATCH_METHOD = "batch";
+  private static final String MANIFEST_METHOD = "manifest";
+  private static final Object[] NO_ARGS = new Object[0];
   public static final String EXPORTED_FUNCTION_SCRIPT = "(!!window.default_module_se)" +
       "?" +
       "window.default_module_se.apply(this, arguments)" +
       ":" +
       "arguments[arguments.length-1](['" + NO_DEFAULT_ERROR + "'])";
 
+  /**
+   * The module last used by each driver. Rather than setting the default module before each call,
+   * the script built by {@link #getModuleScript(String)} finds the module's function itself, so the
+   * binding survives reloads and switching windows without any extra round trips.
+   */
+  private static final Map<WebDriver, String> BOUND_MODULES =
+      Collections.synchronizedMap(new WeakHashMap<>());
+  private static final Map<String, String> MODULE_SCRIPTS = new ConcurrentHashMap<>();
+  private static final Map<String, String> SYNC_MODULE_SCRIPTS = new ConcurrentHashMap<>();
+  /**
+   * The ids of the methods exported by each module, read from its manifest the first time the
+   * module is used, so that every call can refer to a method by its id rather than sending its full
+   * name to be looked up.
+   */
+  private static final Map<WebDriver, Map<String, MethodIds>> METHOD_IDS =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
   /**
    * Examines the current page for any window with a $moduleName defined on it. Should return a list
    * of names if any are present - typically will return only one entry, or none if GWT isn't in use
@@ -48,6 +78,7 @@ public class ModuleUtilities {
   public static List<String> findModules(WebDriver driver) {
     JavascriptExecutor exec = (JavascriptExecutor) driver;
 
+    long start = System.nanoTime();
     @SuppressWarnings("unchecked")
     List<String> modulesPresent = (List<String>) exec.executeScript("var n=[];" +
         "function a(c) {c.$moduleName && window['_' + c.$moduleName + '_se'] && n.push(c.$moduleName)};"
@@ -61,12 +92,86 @@ public class ModuleUtilities {
         //ignore because it means cross domain activity, and that means not a module
         "}" +
         "return n;");
+    RoundTrips.record("findModules", System.nanoTime() - start, NO_ARGS, modulesPresent);
 
     LOGGER.fine("Found modules:" + modulesPresent);
     return modulesPresent;
   }
 
+  /**
+   * Lists the methods exported by the module used with this driver, or the first module found on
+   * the page.
+   *
+   * @param driver the driver
+   * @return the name of each exported method, as "type::method"
+   */
+  public static List<String> getExportedMethods(WebDriver driver) {
+    return getExportedMethods(null, driver);
+  }
+
+  /**
+   * Lists the methods exported by the given module.
+   *
+   * @param module the name of the GWT module to connect with
+   * @param driver the driver
+   * @return the name of each exported method, as "type::method"
+   */
+  public static List<String> getExportedMethods(String module, WebDriver driver) {
+    List<?> manifest = (List<?>) execute(driver, module, true, new Object[]{MANIFEST_METHOD})
+        .get(1);
+    List<String> names = new ArrayList<>(manifest.size() - 1);
+    for (Object name : manifest.subList(1, manifest.size())) {
+      names.add(name.toString());
+    }
+    return names;
+  }
+
   public static Object executeExportedFunction(String method, WebDriver driver, Object... args) {
+    return executeExportedFunction(null, method, driver, args);
+  }
+
+  public static Object executeExportedFunction(String module, String method, WebDriver driver,
+      Object... args) {
+    return executeExportedFunction(module, method, false, driver, args);
+  }
+
+  /**
+   * Invokes an exported function synchronously with {@link JavascriptExecutor#executeScript(String,
+   * Object...)}, rather than with {@link JavascriptExecutor#executeAsyncScript(String, Object...)}
+   * and waiting for a callback. This is faster, but runs the method in the same event loop turn as
+   * the script, so methods which need to wait for the application (such as for deferred commands
+   * to run) should use {@link #executeExportedFunction(String, WebDriver, Object...)} instead.
+   * <p>
+   * If the module was compiled without support for synchronous calls, falls back to calling it
+   * asynchronously.
+   *
+   * @param method the exported method to invoke
+   * @param driver the driver
+   * @param args the arguments to pass to the method
+   * @return the result of the method
+   */
+  public static Object executeSyncExportedFunction(String method, WebDriver driver,
+      Object... args) {
+    return executeSyncExportedFunction(null, method, driver, args);
+  }
+
+  /**
+   * Invokes an exported function on the given module synchronously.
+   *
+   * @param module the name of the GWT module to connect with
+   * @param method the exported method to invoke
+   * @param driver the driver
+   * @param args the arguments to pass to the method
+   * @return the result of the method
+   * @see #executeSyncExportedFunction(String, WebDriver, Object...)
+   */
+  public static Object executeSyncExportedFunction(String module, String method,
+      WebDriver driver, Object... args) {
+    return executeExportedFunction(module, method, true, driver, args);
+  }
+
+  private static Object executeExportedFunction(String module, String method, boolean sync,
+      WebDriver driver, Object... args) {
     if (LOGGER.isLoggable(Level.FINEST)) {
       LOGGER.finest("running " + method + "(");
       for (Object obj : args) {
@@ -77,40 +182,324 @@ public class ModuleUtilities {
     Object[] allArgs = new Object[args.length + 1];
     allArgs[0] = method;
     System.arraycopy(args, 0, allArgs, 1, args.length);
-    List<?> ret;
+    List<?> ret = execute(driver, module, sync, allArgs);
+
+    if (LOGGER.isLoggable(Level.FINEST)) {
+      LOGGER.finest("\t" + ret);
+    }
+    return ret.get(1);
+  }
+
+  /**
+   * Invokes several exported functions in a single round trip to the browser. Each call is a list
+   * made up of the method name followed by its arguments, following the same rules as {@link
+   * #executeExportedFunction(String, WebDriver, Object...)}. Every call is run even if an earlier
+   * one fails, but if any call failed, an exception will be thrown for the first failure.
+   *
+   * @param driver the driver
+   * @param calls the calls to make, each a list of the method name and its arguments
+   * @return the result of each call, in the same order as the calls were given
+   */
+  public static List<Object> executeBatch(WebDriver driver, List<? extends List<?>> calls) {
+    return executeBatch(null, driver, calls);
+  }
+
+  /**
+   * Invokes several exported functions on the given module in a single round trip to the browser.
+   *
+   * @param module the name of the GWT module to connect with
+   * @param driver the driver
+   * @param calls the calls to make, each a list of the method name and its arguments
+   * @return the result of each call, in the same order as the calls were given
+   * @see #executeBatch(WebDriver, List)
+   */
+  public static List<Object> executeBatch(String module, WebDriver driver,
+      List<? extends List<?>> calls) {
+    return executeBatch(module, false, driver, calls);
+  }
+
+  /**
+   * Invokes several exported functions synchronously in a single round trip to the browser.
+   *
+   * @param driver the driver
+   * @param calls the calls to make, each a list of the method name and its arguments
+   * @return the result of each call, in the same order as the calls were given
+   * @see #executeBatch(WebDriver, List)
+   * @see #executeSyncExportedFunction(String, WebDriver, Object...)
+   */
+  public static List<Object> executeSyncBatch(WebDriver driver, List<? extends List<?>> calls) {
+    return executeSyncBatch(null, driver, calls);
+  }
+
+  /**
+   * Invokes several exported functions on the given module synchronously in a single round trip to
+   * the browser.
+   *
+   * @param module the name of the GWT module to connect with
+   * @param driver the driver
+   * @param calls the calls to make, each a list of the method name and its arguments
+   * @return the result of each call, in the same order as the calls were given
+   * @see #executeBatch(WebDriver, List)
+   * @see #executeSyncExportedFunction(String, WebDriver, Object...)
+   */
+  public static List<Object> executeSyncBatch(String module, WebDriver driver,
+      List<? extends List<?>> calls) {
+    return executeBatch(module, true, driver, calls);
+  }
+
+  private static List<Object> executeBatch(String module, boolean sync, WebDriver driver,
+      List<? extends List<?>> calls) {
+    if (LOGGER.isLoggable(Level.FINEST)) {
+      LOGGER.finest("running batch " + calls);
+    }
+    List<?> ret = execute(driver, module, sync, new Object[]{BATCH_METHOD, calls});
+
+    List<Object> results = new ArrayList<>(calls.size());
+    for (Object response : (List<?>) ret.get(1)) {
+      List<?> callRet = (List<?>) response;
+      if (callRet.size() == 1) {
+        //error, log and throw
+        LOGGER.warning("Error executing script: " + callRet.get(0));
+        throw new RuntimeException(callRet.get(0).toString());
+      }
+      results.add(callRet.get(1));
+    }
+
+    if (LOGGER.isLoggable(Level.FINEST)) {
+      LOGGER.finest("\t" + results);
+    }
+    return results;
+  }
+
+  /**
+   * Runs the exported function, either on the given module, or if null, the module last used with
+   * this driver, or the first module found on the page.
+   */
+  private static List<?> execute(WebDriver driver, String module, boolean sync,
+      Object[] allArgs) {
     JavascriptExecutor executor = (JavascriptExecutor) driver;
-    ret = (List<?>) executor.executeAsyncScript(EXPORTED_FUNCTION_SCRIPT, allArgs);
-    if (ret.size() == 1 && ret.get(0).equals(NO_DEFAULT_ERROR)) {
-      //error, try again after wiring up module
-      if (setDefaultModule(findModules(driver).get(0), executor)) {
-        //success, try one more time...
-        ret = (List<?>) executor.executeAsyncScript(EXPORTED_FUNCTION_SCRIPT, allArgs);
-      } else {
+    if (module == null) {
+      module = BOUND_MODULES.get(driver);
+    }
+    List<?> ret;
+    if (module != null) {
+      ret = execute(driver, executor, module, sync, allArgs);
+    } else if (sync) {
+      // there's no synchronous default module, go find one
+      ret = Collections.singletonList(NO_DEFAULT_ERROR);
+    } else {
+      long start = System.nanoTime();
+      ret = (List<?>) executor.executeAsyncScript(EXPORTED_FUNCTION_SCRIPT, allArgs);
+      RoundTrips.record(allArgs[0].toString(), System.nanoTime() - start, allArgs, ret);
+    }
+    if (ret.size() == 1 && (ret.get(0).equals(NO_DEFAULT_ERROR) || ret.get(0)
+        .equals(NO_MODULE_ERROR))) {
+      //error, try again after finding a module that is actually present
+      List<String> modules = findModules(driver);
+      if (modules.isEmpty()) {
+        BOUND_MODULES.remove(driver);
         throw new RuntimeException(
             "Unable to find a module to talk with - did you add an inherits for SeleniumExporter?");
       }
+      module = modules.get(0);
+      ret = execute(driver, executor, module, sync, allArgs);
+    }
+    if (module != null) {
+      BOUND_MODULES.put(driver, module);
     }
     if (ret.size() == 1) {
       //error, log and throw
       LOGGER.warning("Error executing script: " + ret.get(0));
       throw new RuntimeException(ret.get(0).toString());
     }
+    return ret;
+  }
 
-    if (LOGGER.isLoggable(Level.FINEST)) {
-      LOGGER.finest("\t" + ret);
+  /**
+   * Runs the exported function on the given module, referring to methods by id where possible. The
+   * module's manifest is fetched before the first call, and again if the module doesn't recognize
+   * the ids (for example, the page was reloaded with a different build).
+   */
+  private static List<?> execute(WebDriver driver, JavascriptExecutor executor, String module,
+      boolean sync, Object[] allArgs) {
+    MethodIds ids = METHOD_IDS.computeIfAbsent(driver, d -> new ConcurrentHashMap<>())
+        .computeIfAbsent(module, m -> new MethodIds());
+    String method = allArgs[0].toString();
+    if (MANIFEST_METHOD.equals(method)) {
+      List<?> ret = execute(executor, module, sync, method, allArgs);
+      ids.load(ret);
+      return ret;
     }
-    return ret.get(1);
+    if (!ids.isLoaded()) {
+      List<?> manifest = fetchManifest(executor, module, sync, ids);
+      if (isMissing(manifest)) {
+        return manifest;
+      }
+    }
+    Object[] sent = ids.replaceNames(allArgs);
+    List<?> ret = execute(executor, module, sync, method, sent);
+    if (sent != allArgs && isStale(method, ret)) {
+      List<?> manifest = fetchManifest(executor, module, sync, ids);
+      if (isMissing(manifest)) {
+        return manifest;
+      }
+      sent = ids.replaceNames(allArgs);
+      ret = execute(executor, module, sync, method, sent);
+      if (sent != allArgs && isStale(method, ret)) {
+        // the module can't be relied on to keep its ids, stop using them
+        ids.load(Collections.emptyList());
+        ret = execute(executor, module, sync, method, allArgs);
+      }
+    }
+    return ret;
   }
 
-  public static Object executeExportedFunction(String module, String method, WebDriver driver,
-      Object... args) {
-    setDefaultModule(module, (JavascriptExecutor) driver);
-    return executeExportedFunction(method, driver, args);
+  private static List<?> fetchManifest(JavascriptExecutor executor, String module, boolean sync,
+      MethodIds ids) {
+    List<?> manifest = execute(executor, module, sync, MANIFEST_METHOD,
+        new Object[]{MANIFEST_METHOD});
+    ids.load(manifest);
+    return manifest;
+  }
+
+  private static boolean isMissing(List<?> ret) {
+    return ret.size() == 1 && NO_MODULE_ERROR.equals(ret.get(0));
   }
 
-  private static boolean setDefaultModule(String module, JavascriptExecutor driver) {
-    LOGGER.fine("Setting default module to " + module + " with " + driver);
-    return (Boolean) driver.executeScript(
-        "return !!(window.default_module_se=window._" + module + "_se);");
+  private static boolean isStale(String method, List<?> ret) {
+    if (ret.size() == 1) {
+      return STALE_ID_ERROR.equals(ret.get(0));
+    }
+    // a batch sent by id is stale if its calls are
+    if (BATCH_METHOD.equals(method)) {
+      for (Object response : (List<?>) ret.get(1)) {
+        if (isStale(null, (List<?>) response)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private static List<?> execute(JavascriptExecutor executor, String module, boolean sync,
+      String method, Object[] allArgs) {
+    long start = System.nanoTime();
+    if (sync) {
+      List<?> ret = (List<?>) executor.executeScript(getSyncModuleScript(module), allArgs);
+      RoundTrips.record(method, System.nanoTime() - start, allArgs, ret);
+      if (ret.size() != 1 || !ret.get(0).equals(NO_SYNC_ERROR)) {
+        return ret;
+      }
+      //module is from an older build without the synchronous function, call it normally
+      start = System.nanoTime();
+    }
+    List<?> ret = (List<?>) executor.executeAsyncScript(getModuleScript(module), allArgs);
+    RoundTrips.record(method, System.nanoTime() - start, allArgs, ret);
+    return ret;
+  }
+
+  /**
+   * Builds a script like {@link #EXPORTED_FUNCTION_SCRIPT}, but which looks up the named module
+   * itself, and also makes it the default module.
+   */
+  private static String getModuleScript(String module) {
+    return MODULE_SCRIPTS.computeIfAbsent(module, name -> {
+      LOGGER.fine("Binding to module " + name);
+      return "var f=window['_" + name + "_se'];" +
+          "if (!f) {" +
+          "arguments[arguments.length-1](['" + NO_MODULE_ERROR + "']);" +
+          "return;" +
+          "}" +
+          "window.default_module_se=f;" +
+          "f.apply(this, arguments);";
+    });
+  }
+
+  /**
+   * Builds a script to call the named module's synchronous function, which returns the response
+   * instead of passing it to a callback.
+   */
+  private static String getSyncModuleScript(String module) {
+    return SYNC_MODULE_SCRIPTS.computeIfAbsent(module, name -> {
+      LOGGER.fine("Binding to module " + name);
+      return "var f=window['_" + name + "_se'];" +
+          "if (!f) {" +
+          "return ['" + NO_MODULE_ERROR + "'];" +
+          "}" +
+          "window.default_module_se=f;" +
+          "var s=window['_" + name + "_se_sync'];" +
+          "return s ? s.apply(this, arguments) : ['" + NO_SYNC_ERROR + "'];";
+    });
+  }
+
+  /**
+   * The ids of the methods exported by one module. The module's manifest lists its methods in order
+   * of their ids, after a stamp identifying that list; the stamp and id are then sent instead of
+   * the name. The module rejects ids with a stamp other than its own.
+   */
+  private static final class MethodIds {
+    private volatile Map<String, Integer> ids = Collections.emptyMap();
+    private volatile int stamp;
+    private volatile boolean loaded;
+
+    boolean isLoaded() {
+      return loaded;
+    }
+
+    /**
+     * Reads the ids from a manifest response. If the module couldn't list its methods, such as one
+     * from an older build, methods are called by name instead.
+     */
+    void load(List<?> ret) {
+      Map<String, Integer> loadedIds = new HashMap<>();
+      int loadedStamp = 0;
+      if (ret.size() == 2 && ret.get(1) instanceof List) {
+        List<?> manifest = (List<?>) ret.get(1);
+        loadedStamp = ((Number) manifest.get(0)).intValue();
+        for (int i = 1; i < manifest.size(); i++) {
+          loadedIds.put(manifest.get(i).toString(), i - 1);
+        }
+      }
+      stamp = loadedStamp;
+      ids = loadedIds;
+      loaded = !isMissing(ret);
+    }
+
+    /**
+     * Returns the arguments to send, with method names replaced by ids if all of them are known.
+     * Batches are only sent by id when every call in them can be, so that if the ids turn out to be
+     * stale, none of the calls have run and the whole batch can be sent again.
+     */
+    Object[] replaceNames(Object[] allArgs) {
+      if (ids.isEmpty()) {
+        return allArgs;
+      }
+      Object[] sent = allArgs.clone();
+      if (BATCH_METHOD.equals(allArgs[0])) {
+        List<List<?>> calls = new ArrayList<>();
+        for (Object call : (List<?>) allArgs[1]) {
+          List<Object> sentCall = new ArrayList<>((List<?>) call);
+          Object ref = ref(sentCall.get(0));
+          if (ref == null) {
+            return allArgs;
+          }
+          sentCall.set(0, ref);
+          calls.add(sentCall);
+        }
+        sent[1] = calls;
+        return sent;
+      }
+      Object ref = ref(allArgs[0]);
+      if (ref == null) {
+        return allArgs;
+      }
+      sent[0] = ref;
+      return sent;
+    }
+
+    private Object ref(Object method) {
+      Integer id = ids.get(method);
+      return id == null ? null : Arrays.asList(stamp, id);
+    }
   }
 }
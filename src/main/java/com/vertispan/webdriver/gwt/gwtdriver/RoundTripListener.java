@@ -0,0 +1,47 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver;
+
+import org.openqa.selenium.By;
+
+/**
+ * Notified of each round trip made to the browser by {@link ModuleUtilities}, and of each GWT
+ * {@link By} that finishes looking for elements. Listeners are called on the thread that made the
+ * call, so should return quickly. Register with {@link RoundTrips#addListener(RoundTripListener)}.
+ *
+ * @see RoundTripRecorder
+ */
+public interface RoundTripListener {
+  /**
+   * Called after a script has been run in the browser.
+   *
+   * @param method the exported method that was invoked, or {@code "batch"} for a batch of calls, or
+   * {@code "findModules"} when looking for modules on the page
+   * @param nanos how long it took for the browser to respond
+   * @param payloadSize an estimate of the size in characters of the arguments and the response
+   */
+  void onRoundTrip(String method, long nanos, int payloadSize);
+
+  /**
+   * Called after a GWT {@link By} has finished finding elements, whether or not it succeeded.
+   *
+   * @param by the locator
+   * @param roundTrips how many round trips it made to the browser
+   * @param nanos how long it took
+   */
+  default void onLocatorFinished(By by, int roundTrips, long nanos) {
+  }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver;
+
+import org.openqa.selenium.By;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the round trips made to the browser on the current thread, so that a test can check that
+ * a page object or locator stays within a budget:
+ * <pre>
+ * try (RoundTripRecorder recorder = RoundTripRecorder.start()) {
+ *   GwtWidget.find(Button.class, driver).withText("Save").done();
+ *   recorder.assertRoundTripsAtMost(2);
+ * }
+ * </pre>
+ * Only calls made through {@link ModuleUtilities} are counted, not other WebDriver commands such
+ * as finding elements by xpath.
+ */
+public class RoundTripRecorder implements RoundTripListener, AutoCloseable {
+  private static final long[] BUCKET_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000};
+
+  private final Thread thread = Thread.currentThread();
+  private final Map<String, Stats> methods = new TreeMap<>();
+  private final Map<String, Stats> locators = new TreeMap<>();
+  private int roundTrips;
+  private long payloadSize;
+
+  /**
+   * @return the upper bound in milliseconds of each latency histogram bucket, the last bucket
+   * holds anything slower
+   */
+  public static List<Long> getBucketMillis() {
+    List<Long> bucketMillis = new ArrayList<>();
+    for (long millis : BUCKET_MILLIS) {
+      bucketMillis.add(millis);
+    }
+    return Collections.unmodifiableList(bucketMillis);
+  }
+
+  /**
+   * Starts recording the round trips made on the current thread, until the recorder is closed.
+   *
+   * @return the new recorder
+   */
+  public static RoundTripRecorder start() {
+    RoundTripRecorder recorder = new RoundTripRecorder();
+    RoundTrips.addListener(recorder);
+    return recorder;
+  }
+
+  @Override
+  public void onRoundTrip(String method, long nanos, int payloadSize) {
+    if (Thread.currentThread() != thread) {
+      return;
+    }
+    roundTrips++;
+    this.payloadSize += payloadSize;
+    methods.computeIfAbsent(method, ignore -> new Stats()).record(1, nanos);
+  }
+
+  @Override
+  public void onLocatorFinished(By by, int roundTrips, long nanos) {
+    if (Thread.currentThread() != thread) {
+      return;
+    }
+    locators.computeIfAbsent(by.getClass().getSimpleName(), ignore -> new Stats())
+        .record(roundTrips, nanos);
+  }
+
+  /**
+   * @return the number of round trips made since recording started
+   */
+  public int getRoundTrips() {
+    return roundTrips;
+  }
+
+  /**
+   * @return the estimated size in characters of all arguments and responses sent so far
+   */
+  public long getPayloadSize() {
+    return payloadSize;
+  }
+
+  /**
+   * @return the round trips made for each exported method, keyed by method name
+   */
+  public Map<String, Stats> getMethodStats() {
+    return Collections.unmodifiableMap(methods);
+  }
+
+  /**
+   * @return the uses of each type of locator, keyed by the simple name of the By class
+   */
+  public Map<String, Stats> getLocatorStats() {
+    return Collections.unmodifiableMap(locators);
+  }
+
+  /**
+   * Fails if more round trips than the budget were made since recording started.
+   *
+   * @param budget the most round trips that are expected
+   * @throws AssertionError if there were more round trips than expected
+   */
+  public void assertRoundTripsAtMost(int budget) {
+    if (roundTrips > budget) {
+      throw new AssertionError("Expected at most " + budget + " round trips, but there were "
+          + roundTrips + ": " + methods + (locators.isEmpty() ? "" : ", locators " + locators));
+    }
+  }
+
+  /**
+   * Starts counting again from zero.
+   */
+  public void reset() {
+    roundTrips = 0;
+    payloadSize = 0;
+    methods.clear();
+    locators.clear();
+  }
+
+  /**
+   * Stops recording.
+   */
+  @Override
+  public void close() {
+    RoundTrips.removeListener(this);
+  }
+
+  /**
+   * Counts and latencies for a single exported method or locator type.
+   */
+  public static class Stats {
+    private int count;
+    private int roundTrips;
+    private long totalNanos;
+    private long maxNanos;
+    private final int[] histogram = new int[BUCKET_MILLIS.length + 1];
+
+    private void record(int roundTrips, long nanos) {
+      count++;
+      this.roundTrips += roundTrips;
+      totalNanos += nanos;
+      maxNanos = Math.max(maxNanos, nanos);
+      long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+      int bucket = 0;
+      while (bucket < BUCKET_MILLIS.length && millis >= BUCKET_MILLIS[bucket]) {
+        bucket++;
+      }
+      histogram[bucket]++;
+    }
+
+    /**
+     * @return the number of calls to the method, or uses of the locator
+     */
+    public int getCount() {
+      return count;
+    }
+
+    /**
+     * @return the number of round trips made, for a method this is the same as the count
+     */
+    public int getRoundTrips() {
+      return roundTrips;
+    }
+
+    public long getTotalNanos() {
+      return totalNanos;
+    }
+
+    public long getMaxNanos() {
+      return maxNanos;
+    }
+
+    /**
+     * @return the number of calls that took less than each of {@link #getBucketMillis()}, with the
+     * last item counting any that took longer
+     */
+    public int[] getHistogram() {
+      return histogram.clone();
+    }
+
+    @Override
+    public String toString() {
+      return count + " calls/" + roundTrips + " round trips, "
+          + TimeUnit.NANOSECONDS.toMillis(totalNanos) + "ms total, histogram "
+          + Arrays.toString(histogram);
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps track of the {@link RoundTripListener}s to notify as calls are made to the browser.
+ */
+public final class RoundTrips {
+  private static final List<RoundTripListener> LISTENERS = new CopyOnWriteArrayList<>();
+
+  /**
+   * Round trips made so far on each thread, so that each locator can tell how many it made.
+   */
+  private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+
+  private RoundTrips() {
+  }
+
+  public static void addListener(RoundTripListener listener) {
+    LISTENERS.add(listener);
+  }
+
+  public static void removeListener(RoundTripListener listener) {
+    LISTENERS.remove(listener);
+  }
+
+  /**
+   * Marks the start of a locator looking for elements. Closing the returned scope reports how many
+   * round trips the locator made:
+   * <pre>
+   * try (RoundTrips.Scope ignore = RoundTrips.enter(this)) {
+   *   ...
+   * }
+   * </pre>
+   *
+   * @param by the locator which is about to start looking for elements
+   * @return a scope to close when the locator is finished
+   */
+  public static Scope enter(By by) {
+    return new Scope(by);
+  }
+
+  static void record(String method, long nanos, Object[] args, Object response) {
+    COUNT.get()[0]++;
+    if (LISTENERS.isEmpty()) {
+      return;
+    }
+    int payloadSize = sizeOf(response);
+    for (Object arg : args) {
+      payloadSize += sizeOf(arg);
+    }
+    for (RoundTripListener listener : LISTENERS) {
+      listener.onRoundTrip(method, nanos, payloadSize);
+    }
+  }
+
+  /**
+   * Roughly the length of the value once it is encoded as JSON.
+   */
+  private static int sizeOf(Object value) {
+    if (value == null) {
+      return 4;
+    } else if (value instanceof CharSequence) {
+      return ((CharSequence) value).length() + 2;
+    } else if (value instanceof List) {
+      int size = 2;
+      for (Object item : (List<?>) value) {
+        size += sizeOf(item) + 1;
+      }
+      return size;
+    } else if (value instanceof WebElement) {
+      // {"element-6066-11e4-a52e-4f735466cecf":"<uuid>"}
+      return 80;
+    }
+    return value.toString().length();
+  }
+
+  /**
+   * The round trips made by a single locator.
+   */
+  public static final class Scope implements AutoCloseable {
+    private final By by;
+    private final int startCount;
+    private final long startNanos;
+
+    private Scope(By by) {
+      this.by = by;
+      this.startCount = COUNT.get()[0];
+      this.startNanos = System.nanoTime();
+    }
+
+    @Override
+    public void close() {
+      if (LISTENERS.isEmpty()) {
+        return;
+      }
+      int roundTrips = COUNT.get()[0] - startCount;
+      long nanos = System.nanoTime() - startNanos;
+      for (RoundTripListener listener : LISTENERS) {
+        listener.onLocatorFinished(by, roundTrips, nanos);
+      }
+    }
+  }
+}
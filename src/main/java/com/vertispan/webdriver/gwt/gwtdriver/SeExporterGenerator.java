@@ -21,6 +21,7 @@ import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
 import com.google.gwt.core.client.JsArrayBoolean;
+import com.google.gwt.core.client.JsArrayInteger;
 import com.google.gwt.core.client.JsArrayNumber;
 import com.google.gwt.core.client.JsArrayString;
 import com.google.gwt.core.ext.BadPropertyValueException;
@@ -31,19 +32,26 @@ import com.google.gwt.core.ext.TreeLogger.Type;
 import com.google.gwt.core.ext.UnableToCompleteException;
 import com.google.gwt.core.ext.typeinfo.JClassType;
 import com.google.gwt.core.ext.typeinfo.JMethod;
+import com.google.gwt.core.ext.typeinfo.JParameterizedType;
 import com.google.gwt.core.ext.typeinfo.JPrimitiveType;
 import com.google.gwt.core.ext.typeinfo.JType;
 import com.google.gwt.core.ext.typeinfo.TypeOracle;
 import com.google.gwt.dev.util.Name;
+import com.google.gwt.user.client.ui.Widget;
 import com.google.gwt.user.rebind.ClassSourceFileComposerFactory;
 import com.google.gwt.user.rebind.SourceWriter;
 
+import com.vertispan.webdriver.gwt.gwtdriver.client.JsValues;
 import com.vertispan.webdriver.gwt.gwtdriver.client.SeleniumExporter.Function;
 import com.vertispan.webdriver.gwt.gwtdriver.client.SeleniumExporter.Method;
 import com.vertispan.webdriver.gwt.gwtdriver.client.SeleniumExporter.MethodsFor;
 
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 import jsinterop.annotations.JsType;
 
@@ -84,6 +92,7 @@ public class SeExporterGenerator extends Generator {
           "Can't find any config property for " + SELENIUM_METHODS + " declared", e);
       throw new UnableToCompleteException();
     }
+    Map<String, Registration> registrations = new TreeMap<>();
     sw.println("protected void exportRegisteredTypes() {");
     sw.indent();
     //for each type set up in a config property,
@@ -142,106 +151,246 @@ public class SeExporterGenerator extends Generator {
           throw new UnableToCompleteException();
         }
 
-        //emit a registerFunction call wrapping it
-        sw.println("registerFunction(\"%1$s\", \"%2$s\", new %3$s() {",
-            escape(refersToType.value().getName()),
-            escape(matchingMethod),
-            Name.getSourceNameForClass(Function.class));
-        sw.indent();
-        sw.println("public Object apply(%1$s<?> args) {",
-            Name.getSourceNameForClass(JsArray.class));
-        sw.indent();
-        JType retType = m.getReturnType();
-        if (retType.isPrimitive() != null) {
-          switch (retType.isPrimitive()) {
-            case VOID:
-              //do nothing
-              break;
-            case INT:
-            case DOUBLE:
-            case BOOLEAN:
-              sw.print("return \"\" + ");
-              break;
-            default:
-              methodLogger.log(Type.ERROR,
-                  "Can't return primitive " + retType + " from exported method");
-              throw new UnableToCompleteException();
-          }
-        } else if (
-            retType.isClass() != null
-                && retType.getQualifiedSourceName().equals("java.lang.String")
-                || ((retType.isClass() != null) && retType.isClass().isAssignableTo(jso))
-                || ((retType.isInterface() != null) && oracle.getSingleJsoImplInterfaces()
-                .contains(retType))) {
+        //collect the registration, to be written out in order
+        String key = refersToType.value().getName() + "::" + matchingMethod;
+        registrations.put(key, new Registration(refersToType.value().getName(), matchingMethod,
+            exportedType, m, methodLogger));
+      }
+    }
+
+    //emit a registerFunction call wrapping each method, sorted so that each gets a stable id
+    for (Registration registration : registrations.values()) {
+      writeRegistration(sw, registration, oracle, jso, elementalNode);
+    }
+    sw.outdent();
+    sw.println("}");
+
+    writeInterfaces(sw, oracle);
+
+    sw.commit(logger);
+
+    return factory.getCreatedClassName();
+  }
+
+  private void writeRegistration(SourceWriter sw, Registration registration, TypeOracle oracle,
+      JClassType jso, JClassType elementalNode) throws UnableToCompleteException {
+    sw.println("registerFunction(\"%1$s\", \"%2$s\", new %3$s() {",
+        escape(registration.declaringType),
+        escape(registration.methodName),
+        Name.getSourceNameForClass(Function.class));
+    sw.indent();
+    sw.println("public Object apply(%1$s<?> args) {",
+        Name.getSourceNameForClass(JsArray.class));
+    sw.indent();
+    JMethod m = registration.method;
+    JType retType = m.getReturnType();
+    //primitives and JS values are returned directly, anything else is converted to JS values
+    String returnSuffix = "";
+    if (retType.isPrimitive() != null) {
+      switch (retType.isPrimitive()) {
+        case VOID:
+          //do nothing
+          break;
+        case INT:
+        case LONG:
+          //boxed as Double, so that it reaches the browser as a plain number
+          sw.print("return (double) ");
+          break;
+        case DOUBLE:
+        case BOOLEAN:
           sw.print("return ");
-        } else {
-          // check for @JsType native classes
-          if (retType.isClass() != null
-              && retType.isClass().getAnnotation(JsType.class) != null
-              && retType.isClass().getAnnotation(JsType.class).isNative()) {
-            sw.print(" return ");
-          } else {
-            methodLogger.log(Type.ERROR,
-                "Can't return non-jso, non-supported primitive " + retType
-                    + " from exported method");
-            throw new UnableToCompleteException();
-          }
-        }
-        if (m.isStatic()) {
-          sw.print(exportedType);
-        } else {
-          sw.print("%1$s.<%2$s>create(%2$s.class)", GWT.class.getName(), exportedType);
+          break;
+        default:
+          registration.logger.log(Type.ERROR,
+              "Can't return primitive " + retType + " from exported method");
+          throw new UnableToCompleteException();
+      }
+    } else if (isJsValue(retType, oracle, jso)) {
+      sw.print("return ");
+    } else if (isConvertible(retType, oracle, jso)) {
+      sw.print("return %1$s.toJs(", JsValues.class.getName());
+      returnSuffix = ")";
+    } else {
+      registration.logger.log(Type.ERROR,
+          "Can't return non-jso, non-supported type " + retType + " from exported method");
+      throw new UnableToCompleteException();
+    }
+    if (m.isStatic()) {
+      sw.print(registration.exportedType);
+    } else {
+      sw.print("%1$s.<%2$s>create(%2$s.class)", GWT.class.getName(),
+          registration.exportedType);
+    }
+    sw.print(".%1$s(", registration.methodName);
+    //iterate through the arguments
+    //verify the arg type is legal
+    JType[] erasedParameterTypes = m.getErasedParameterTypes();
+    for (int i = 0; i < erasedParameterTypes.length; i++) {
+      JType type = erasedParameterTypes[i];
+
+      if (type.isPrimitive() != null || type.getQualifiedSourceName()
+          .equals("java.lang.String")) {
+        //cast uglyness
+        if (type == JPrimitiveType.LONG) {
+          sw.print("(long) ");
         }
-        sw.print(".%1$s(", matchingMethod);
-        //iterate through the arguments
-        //verify the arg type is legal
-        JType[] erasedParameterTypes = m.getErasedParameterTypes();
-        for (int i = 0; i < erasedParameterTypes.length; i++) {
-          JType type = erasedParameterTypes[i];
+        sw.print("args.<%2$s>cast().get(%1$d)", i, getJsArray(type));
+      } else if (type.isClass() != null && type.isClass().isAssignableTo(jso)) {
+        //normal array plus cast() trickery
+        sw.print("args.get(%1$d).<%2$s>cast()", i, type.getQualifiedSourceName());
+      } else if (type.isClass() != null
+          && elementalNode != null
+          && type.isClass().isAssignableTo(elementalNode)) {
+        sw.print("jsinterop.base.Js.cast(args.get(%1$d))", i,
+            type.getQualifiedSourceName());
+      } else if (type.isInterface() != null && oracle.getSingleJsoImplInterfaces()
+          .contains(type.isInterface())) {
+        //single jso cast thing
+        sw.print("args.get(%1$d).<%2$s>cast()", i,
+            oracle.getSingleJsoImpl(type.isInterface()).getQualifiedSourceName());
+      } else {//TODO goktug's magic new jsinterface
+        registration.logger.log(Type.ERROR, "Can't handle argument of type " + type);
+        throw new UnableToCompleteException();
+      }
+      if (i != erasedParameterTypes.length - 1) {
+        sw.println(",");
+      }
+    }
+    sw.println(")%1$s;", returnSuffix);
+
+    if (m.getReturnType() == JPrimitiveType.VOID) {
+      sw.println("return null;");
+    }
+
+    sw.outdent();
+    sw.println("}");
+    sw.outdent();
+    sw.println("});");
+  }
 
-          if (type.isPrimitive() != null || type.getQualifiedSourceName()
-              .equals("java.lang.String")) {
-            //cast uglyness
-            sw.print("args.<%2$s>cast().get(%1$d)", i, getJsArray(type));
-          } else if (type.isClass() != null && type.isClass().isAssignableTo(jso)) {
-            //normal array plus cast() trickery
-            sw.print("args.get(%1$d).<%2$s>cast()", i, type.getQualifiedSourceName());
-          } else if (type.isClass() != null
-              && elementalNode != null
-              && type.isClass().isAssignableTo(elementalNode)) {
-            sw.print("jsinterop.base.Js.cast(args.get(%1$d))", i,
-                type.getQualifiedSourceName());
-          } else if (type.isInterface() != null && oracle.getSingleJsoImplInterfaces()
-              .contains(type.isInterface())) {
-            //single jso cast thing
-            sw.print("args.get(%1$d).<%2$s>cast()", i,
-                oracle.getSingleJsoImpl(type.isInterface()).getQualifiedSourceName());
-          } else {//TODO goktug's magic new jsinterface
-            methodLogger.log(Type.ERROR, "Can't handle argument of type " + type);
-            throw new UnableToCompleteException();
+  /**
+   * Emits a switch from each type name to the interfaces it directly implements or extends, for
+   * every widget class and each class and interface that they extend. Superclasses are walked at
+   * runtime, so each type is listed once with only its own interfaces, and types without any are
+   * left out.
+   */
+  private void writeInterfaces(SourceWriter sw, TypeOracle oracle) {
+    Map<String, List<String>> interfaces = new TreeMap<>();
+    JClassType widget = oracle.findType(Widget.class.getName());
+    if (widget != null) {
+      List<JClassType> widgetTypes = new ArrayList<>(Arrays.asList(widget.getSubtypes()));
+      widgetTypes.add(widget);
+      for (JClassType widgetType : widgetTypes) {
+        for (JClassType type : widgetType.getFlattenedSupertypeHierarchy()) {
+          type = type.getErasedType();
+          String name = type.getQualifiedBinaryName();
+          if (interfaces.containsKey(name) || type.getImplementedInterfaces().length == 0) {
+            continue;
           }
-          if (i != erasedParameterTypes.length - 1) {
-            sw.println(",");
+          List<String> names = new ArrayList<>();
+          for (JClassType iface : type.getImplementedInterfaces()) {
+            names.add(escape(iface.getErasedType().getQualifiedBinaryName()));
           }
+          interfaces.put(name, names);
         }
-        sw.println(");");
-
-        if (m.getReturnType() == JPrimitiveType.VOID) {
-          sw.println("return null;");
-        }
-
-        sw.outdent();
-        sw.println("}");
-        sw.outdent();
-        sw.println("});");
       }
     }
+    sw.println("protected String[] getInterfaces(String type) {");
+    sw.indent();
+    sw.println("switch (type) {");
+    sw.indent();
+    for (Map.Entry<String, List<String>> entry : interfaces.entrySet()) {
+      sw.println("case \"%1$s\":", escape(entry.getKey()));
+      sw.indentln("return new String[] {\"%1$s\"};", String.join("\", \"", entry.getValue()));
+    }
+    sw.println("default:");
+    sw.indentln("return null;");
+    sw.outdent();
+    sw.println("}");
     sw.outdent();
     sw.println("}");
+  }
 
-    sw.commit(logger);
+  /**
+   * A method to export, and the name it will be invoked by.
+   */
+  private static class Registration {
+    private final String declaringType;
+    private final String methodName;
+    private final String exportedType;
+    private final JMethod method;
+    private final TreeLogger logger;
 
-    return factory.getCreatedClassName();
+    private Registration(String declaringType, String methodName, String exportedType,
+        JMethod method, TreeLogger logger) {
+      this.declaringType = declaringType;
+      this.methodName = methodName;
+      this.exportedType = exportedType;
+      this.method = method;
+      this.logger = logger;
+    }
+  }
+
+  /**
+   * Strings, JavaScriptObjects and native JsTypes can be handed to WebDriver as they are.
+   */
+  private boolean isJsValue(JType type, TypeOracle oracle, JClassType jso) {
+    if (type.getQualifiedSourceName().equals("java.lang.String")) {
+      return true;
+    }
+    JClassType classType = type.isClass();
+    if (classType != null) {
+      if (classType.isAssignableTo(jso)) {
+        return true;
+      }
+      JsType jsType = classType.getAnnotation(JsType.class);
+      return jsType != null && jsType.isNative();
+    }
+    return type.isInterface() != null
+        && oracle.getSingleJsoImplInterfaces().contains(type.isInterface());
+  }
+
+  /**
+   * Boxed primitives, and arrays and lists of anything that can be returned, are converted to JS
+   * values by {@link JsValues#toJs(Object)}.
+   */
+  private boolean isConvertible(JType type, TypeOracle oracle, JClassType jso) {
+    if (type.isPrimitive() != null) {
+      JPrimitiveType primitive = type.isPrimitive();
+      return primitive == JPrimitiveType.INT || primitive == JPrimitiveType.LONG
+          || primitive == JPrimitiveType.DOUBLE || primitive == JPrimitiveType.BOOLEAN;
+    }
+    if (isJsValue(type, oracle, jso)) {
+      return true;
+    }
+    String name = type.getErasedType().getQualifiedSourceName();
+    if (name.equals("java.lang.Integer") || name.equals("java.lang.Long")
+        || name.equals("java.lang.Double") || name.equals("java.lang.Boolean")) {
+      return true;
+    }
+    if (type.isArray() != null) {
+      return isConvertible(type.isArray().getComponentType(), oracle, jso);
+    }
+    JClassType list = oracle.findType(List.class.getName());
+    JClassType classOrInterface = type.isClassOrInterface();
+    if (classOrInterface == null || !classOrInterface.getErasedType().isAssignableTo(list)) {
+      return false;
+    }
+    JParameterizedType parameterized = type.isParameterized();
+    if (parameterized == null) {
+      //raw list, can't check the items until runtime
+      return true;
+    }
+    for (JClassType typeArg : parameterized.getTypeArgs()) {
+      JType itemType = typeArg;
+      if (typeArg.isWildcard() != null) {
+        itemType = typeArg.isWildcard().getUpperBound();
+      }
+      if (!isConvertible(itemType, oracle, jso)) {
+        return false;
+      }
+    }
+    return true;
   }
 
   private String getJsArray(JType type) {
@@ -249,7 +398,9 @@ public class SeExporterGenerator extends Generator {
       return Name.getSourceNameForClass(JsArrayString.class);
     } else if (type == JPrimitiveType.BOOLEAN) {
       return Name.getSourceNameForClass(JsArrayBoolean.class);
-    } else if (type == JPrimitiveType.INT || type == JPrimitiveType.DOUBLE) {
+    } else if (type == JPrimitiveType.INT) {
+      return Name.getSourceNameForClass(JsArrayInteger.class);
+    } else if (type == JPrimitiveType.LONG || type == JPrimitiveType.DOUBLE) {
       return Name.getSourceNameForClass(JsArrayNumber.class);
     }
     return null;
@@ -17,8 +17,10 @@ package com.vertispan.webdriver.gwt.gwtdriver.by;
 
 import com.google.gwt.user.client.ui.Widget;
 
+import com.vertispan.webdriver.gwt.gwtdriver.RoundTrips;
 import com.vertispan.webdriver.gwt.gwtdriver.invoke.ClientMethodsFactory;
 import com.vertispan.webdriver.gwt.gwtdriver.invoke.ExportedMethods;
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.TraversalOptions;
 
 import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.SearchContext;
@@ -26,6 +28,7 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.internal.Require;
 
+import java.util.Arrays;
 import java.util.List;
 
 
@@ -39,6 +42,7 @@ import java.util.List;
  */
 public class ByDescendantWidget extends GwtBy {
   private final String type;
+  private TraversalOptions options = new TraversalOptions();
 
   /**
    * Finds the descendant Widgets of any type - anything that extends Widget will be found.
@@ -93,8 +97,8 @@ public class ByDescendantWidget extends GwtBy {
    * This will find any subtype of that widget, allowing you to pass in {@link
    * com.google.gwt.user.client.ui.ValueBoxBase} and find any {@link com.google.gwt.user.client.ui.TextBox},
    * {@link com.google.gwt.user.client.ui.TextArea}, {@link com.google.gwt.user.client.ui.IntegerBox},
-   * etc, as these are all subclasses of {@code ValueBoxBase}.  Note that interfaces cannot be used,
-   * only base classes, and those classes *must* extend Widget.
+   * etc, as these are all subclasses of {@code ValueBoxBase}.  Interfaces implemented by widgets,
+   * such as {@link com.google.gwt.user.client.ui.HasText}, can also be given by name.
    *
    * @param widgetClassName The type of widget to find
    */
@@ -108,8 +112,8 @@ public class ByDescendantWidget extends GwtBy {
    * This will find any subtype of that widget, allowing you to pass in {@link
    * com.google.gwt.user.client.ui.ValueBoxBase} and find any {@link com.google.gwt.user.client.ui.TextBox},
    * {@link com.google.gwt.user.client.ui.TextArea}, {@link com.google.gwt.user.client.ui.IntegerBox},
-   * etc, as these are all subclasses of {@code ValueBoxBase}.  Note that interfaces cannot be used,
-   * only base classes, and those classes *must* extend Widget.
+   * etc, as these are all subclasses of {@code ValueBoxBase}.  Interfaces implemented by widgets,
+   * such as {@link com.google.gwt.user.client.ui.HasText}, can also be given by name.
    *
    * @param driver The driver to use to communicate with the browser.
    * @param widgetClassName The type of widget to find
@@ -119,34 +123,134 @@ public class ByDescendantWidget extends GwtBy {
     this.type = widgetClassName;
   }
 
+  /**
+   * Only searches down to the given depth below the context widget, where its children are at depth
+   * 1.
+   *
+   * @param maxDepth the deepest level to search
+   * @return this
+   */
+  public ByDescendantWidget withMaxDepth(int maxDepth) {
+    options.maxDepth(maxDepth);
+    return this;
+  }
+
+  /**
+   * Doesn't search inside of widgets that match, so that nested matches are not found.
+   *
+   * @return this
+   */
+  public ByDescendantWidget stopAtMatch() {
+    options.stopAtMatch();
+    return this;
+  }
+
+  /**
+   * Doesn't search inside of widgets of the given type, such as a {@link
+   * com.google.gwt.user.client.ui.DialogBox} that can't contain what is being looked for.
+   *
+   * @param widgetType the type of widget whose descendants should be skipped
+   * @return this
+   */
+  public ByDescendantWidget skipDescendantsOf(Class<? extends Widget> widgetType) {
+    options.skipDescendantsOf(widgetType);
+    return this;
+  }
+
+  /**
+   * Doesn't search inside of widgets of the given type.
+   *
+   * @param widgetClassName the type of widget whose descendants should be skipped
+   * @return this
+   */
+  public ByDescendantWidget skipDescendantsOf(String widgetClassName) {
+    options.skipDescendantsOf(widgetClassName);
+    return this;
+  }
+
+  /**
+   * Only finds widgets which are visible, checking each one in the browser as part of the search.
+   * Hidden widgets are not searched inside of either.
+   *
+   * @return this
+   */
+  public ByDescendantWidget onlyVisible() {
+    options.onlyVisible();
+    return this;
+  }
+
+  /**
+   * Only finds widgets which pass all of the given checks, such as being inside of the browser
+   * window, or not being covered by the glass panel of a modal popup.
+   *
+   * @param checks the visibility checks each match must pass
+   * @return this
+   */
+  public ByDescendantWidget require(TraversalOptions.Visibility... checks) {
+    options.require(checks);
+    return this;
+  }
+
+  /**
+   * Replaces all limits on the search with the given options.
+   *
+   * @param options the limits on the search
+   * @return this
+   */
+  public ByDescendantWidget withOptions(TraversalOptions options) {
+    this.options = options;
+    return this;
+  }
+
 
   @Override
   public List<WebElement> findElements(SearchContext context) {
-    Require.nonNull("Search Context", context);
-    final WebElement contextElem = toWebElement(context);
+    try (RoundTrips.Scope ignore = RoundTrips.enter(this)) {
+      Require.nonNull("Search Context", context);
+      final WebElement contextElem = toWebElement(context);
 
-    ExportedMethods m = ClientMethodsFactory.create(ExportedMethods.class, getDriver(context));
-    // could return empty list
-    return m.findDescendantWidgetElementsOfType(contextElem, type);
+      ExportedMethods m = ClientMethodsFactory.create(ExportedMethods.class, getDriver(context));
+      // could return empty list
+      if (options.isEmpty()) {
+        return m.findDescendantWidgetElementsOfType(contextElem, type);
+      }
+      return m.findDescendantWidgetElementsOfTypeWithOptions(contextElem, type, options.asList(),
+          0, -1);
+    }
   }
 
   @Override
   public WebElement findElement(SearchContext context) {
-    Require.nonNull("Search Context", context);
-    final WebElement contextElem = toWebElement(context);
+    try (RoundTrips.Scope ignore = RoundTrips.enter(this)) {
+      Require.nonNull("Search Context", context);
+      final WebElement contextElem = toWebElement(context);
 
-    ExportedMethods m = ClientMethodsFactory.create(ExportedMethods.class, getDriver(context));
-    WebElement first = m.findFirstDescendantWidgetElementsOfType(contextElem, type);
-    if (first == null) {
-      throw new NoSuchElementException("Cannot find widget of type " + type);
+      ExportedMethods m = ClientMethodsFactory.create(ExportedMethods.class, getDriver(context));
+      WebElement first;
+      if (options.isEmpty()) {
+        first = m.findFirstDescendantWidgetElementsOfType(contextElem, type);
+      } else {
+        List<WebElement> found = m.findDescendantWidgetElementsOfTypeWithOptions(contextElem, type,
+            options.asList(), 0, 1);
+        first = found.isEmpty() ? null : found.get(0);
+      }
+      if (first == null) {
+        throw new NoSuchElementException("Cannot find widget of type " + type);
+      }
+      return first;
     }
-    return first;
+  }
+
+  @Override
+  protected List<Object> getChainStep() {
+    return Arrays.asList("descendantWidget", type, options.asList());
   }
 
   @Override
   public String toString() {
     return "ByDescendantWidget{" +
         "type='" + type + '\'' +
+        (options.isEmpty() ? "" : ", options=" + options) +
         '}';
   }
 }
@@ -23,6 +23,7 @@ import com.google.gwt.user.client.ui.TextBox;
 import com.google.gwt.user.client.ui.ValueBoxBase;
 import com.google.gwt.user.client.ui.Widget;
 
+import com.vertispan.webdriver.gwt.gwtdriver.RoundTrips;
 import com.vertispan.webdriver.gwt.gwtdriver.invoke.ClientMethodsFactory;
 import com.vertispan.webdriver.gwt.gwtdriver.invoke.ExportedMethods;
 
@@ -33,6 +34,7 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.internal.Require;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -92,8 +94,9 @@ public class ByNearestWidget extends GwtBy {
   /**
    * Finds the nearest containing widget of the given type. This will find any subtype of that
    * widget, allowing you to pass in {@link ValueBoxBase} and find any {@link TextBox}, {@link
-   * TextArea}, {@link IntegerBox}, etc, as these are all subclasses of {@code ValueBoxBase}. Note
-   * that interfaces cannot be used, only base classes, and those classes *must* extend Widget.
+   * TextArea}, {@link IntegerBox}, etc, as these are all subclasses of {@code ValueBoxBase}.
+   * Interfaces implemented by widgets, such as {@link com.google.gwt.user.client.ui.HasText}, can
+   * also be given by name.
    *
    * @param widgetClassName the type of widget to find
    */
@@ -104,8 +107,9 @@ public class ByNearestWidget extends GwtBy {
   /**
    * Finds the nearest containing widget of the given type. This will find any subtype of that
    * widget, allowing you to pass in {@link ValueBoxBase} and find any {@link TextBox}, {@link
-   * TextArea}, {@link IntegerBox}, etc, as these are all subclasses of {@code ValueBoxBase}. Note
-   * that interfaces cannot be used, only base classes, and those classes *must* extend Widget.
+   * TextArea}, {@link IntegerBox}, etc, as these are all subclasses of {@code ValueBoxBase}.
+   * Interfaces implemented by widgets, such as {@link com.google.gwt.user.client.ui.HasText}, can
+   * also be given by name.
    *
    * @param driver the driver to use to communicate with the browser
    * @param widgetClassName the type of widget to find
@@ -117,22 +121,26 @@ public class ByNearestWidget extends GwtBy {
 
   @Override
   public List<WebElement> findElements(SearchContext context) {
-    Require.nonNull("Search Context", context);
-    WebElement elt = tryFindElement(context);
-    if (elt != null) {
-      return Collections.singletonList(elt);
+    try (RoundTrips.Scope ignore = RoundTrips.enter(this)) {
+      Require.nonNull("Search Context", context);
+      WebElement elt = tryFindElement(context);
+      if (elt != null) {
+        return Collections.singletonList(elt);
+      }
+      return Collections.emptyList();
     }
-    return Collections.emptyList();
   }
 
   @Override
   public WebElement findElement(SearchContext context) {
-    Require.nonNull("Search Context", context);
-    WebElement potentialElement = tryFindElement(context);
-    if (potentialElement == null) {
-      throw new NoSuchElementException("Cannot find a " + widgetClassName + " in " + context);
+    try (RoundTrips.Scope ignore = RoundTrips.enter(this)) {
+      Require.nonNull("Search Context", context);
+      WebElement potentialElement = tryFindElement(context);
+      if (potentialElement == null) {
+        throw new NoSuchElementException("Cannot find a " + widgetClassName + " in " + context);
+      }
+      return potentialElement;
     }
-    return potentialElement;
   }
 
   /**
@@ -149,6 +157,11 @@ public class ByNearestWidget extends GwtBy {
     return potentialElement;
   }
 
+  @Override
+  protected List<Object> getChainStep() {
+    return Arrays.asList("nearestWidget", widgetClassName);
+  }
+
   @Override
   public String toString() {
     return "ByNearestWidget"
@@ -19,6 +19,7 @@ package com.vertispan.webdriver.gwt.gwtdriver.by;
 
 import com.google.gwt.user.client.ui.Widget;
 
+import com.vertispan.webdriver.gwt.gwtdriver.RoundTrips;
 import com.vertispan.webdriver.gwt.gwtdriver.invoke.ClientMethodsFactory;
 import com.vertispan.webdriver.gwt.gwtdriver.invoke.ExportedMethods;
 
@@ -28,6 +29,7 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.internal.Require;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -99,28 +101,55 @@ public class ByWidget extends GwtBy {
 
   @Override
   public List<WebElement> findElements(SearchContext context) {
-    Require.nonNull("Search Context", context);
-    WebElement contextElem = toWebElement(context);
+    try (RoundTrips.Scope ignore = RoundTrips.enter(this)) {
+      Require.nonNull("Search Context", context);
+      WebElement contextElem = toWebElement(context);
 
-    ExportedMethods m = ClientMethodsFactory.create(ExportedMethods.class, getDriver(context));
-    if (m.instanceofwidget(contextElem, type)) {
-      return Collections.singletonList(contextElem);
-    }
+      ExportedMethods m = ClientMethodsFactory.create(ExportedMethods.class, getDriver(context));
+      if (m.instanceofwidget(contextElem, type)) {
+        return Collections.singletonList(contextElem);
+      }
 
-    return Collections.emptyList();
+      return Collections.emptyList();
+    }
   }
 
   @Override
   public WebElement findElement(SearchContext context) {
-    Require.nonNull("Search Context", context);
-    final WebElement contextElement = toWebElement(context);
+    try (RoundTrips.Scope ignore = RoundTrips.enter(this)) {
+      Require.nonNull("Search Context", context);
+      final WebElement contextElement = toWebElement(context);
+
+      ExportedMethods m = ClientMethodsFactory.create(ExportedMethods.class, getDriver(context));
+      if (m.instanceofwidget(contextElement, type)) {
+        return contextElement;
+      }
 
-    ExportedMethods m = ClientMethodsFactory.create(ExportedMethods.class, getDriver(context));
-    if (m.instanceofwidget(contextElement, type)) {
-      return contextElement;
+      throw new NoSuchElementException("Can't find widget of type " + type);
     }
+  }
 
-    throw new NoSuchElementException("Can't find widget of type " + type);
+  /**
+   * Checks all of the given elements at once, rather than each one separately as happens when this
+   * is used in a {@link org.openqa.selenium.support.pagefactory.ByChained}.
+   *
+   * @param context the search context, used to find the driver if none was given
+   * @param elements the elements to check
+   * @return the elements which are widgets of the given type, in order, without duplicates
+   */
+  public List<WebElement> filter(SearchContext context, List<WebElement> elements) {
+    try (RoundTrips.Scope ignore = RoundTrips.enter(this)) {
+      if (elements.isEmpty()) {
+        return Collections.emptyList();
+      }
+      ExportedMethods m = ClientMethodsFactory.create(ExportedMethods.class, getDriver(context));
+      return m.filterWidgets(elements, type);
+    }
+  }
+
+  @Override
+  protected List<Object> getChainStep() {
+    return Arrays.asList("isWidget", type);
   }
 
   @Override
@@ -17,6 +17,7 @@ package com.vertispan.webdriver.gwt.gwtdriver.by;
 
 import com.google.gwt.user.client.ui.Widget;
 
+import com.vertispan.webdriver.gwt.gwtdriver.RoundTrips;
 import com.vertispan.webdriver.gwt.gwtdriver.invoke.ClientMethodsFactory;
 import com.vertispan.webdriver.gwt.gwtdriver.invoke.ExportedMethods;
 
@@ -25,8 +26,8 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.internal.Require;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * GWT specific {@code By} implementation that gets the direct child Widgets.
@@ -91,8 +92,8 @@ public class ByWidgetChildren extends GwtBy {
    * This will find any subtype of that widget, allowing you to pass in {@link
    * com.google.gwt.user.client.ui.ValueBoxBase} and find any {@link com.google.gwt.user.client.ui.TextBox},
    * {@link com.google.gwt.user.client.ui.TextArea}, {@link com.google.gwt.user.client.ui.IntegerBox},
-   * etc, as these are all subclasses of {@code ValueBoxBase}.  Note that interfaces cannot be used,
-   * only base classes, and those classes *must* extend Widget.
+   * etc, as these are all subclasses of {@code ValueBoxBase}.  Interfaces implemented by widgets,
+   * such as {@link com.google.gwt.user.client.ui.HasText}, can also be given by name.
    *
    * @param widgetClassName The type of widget to find
    */
@@ -106,8 +107,8 @@ public class ByWidgetChildren extends GwtBy {
    * This will find any subtype of that widget, allowing you to pass in {@link
    * com.google.gwt.user.client.ui.ValueBoxBase} and find any {@link com.google.gwt.user.client.ui.TextBox},
    * {@link com.google.gwt.user.client.ui.TextArea}, {@link com.google.gwt.user.client.ui.IntegerBox},
-   * etc, as these are all subclasses of {@code ValueBoxBase}.  Note that interfaces cannot be used,
-   * only base classes, and those classes *must* extend Widget.
+   * etc, as these are all subclasses of {@code ValueBoxBase}.  Interfaces implemented by widgets,
+   * such as {@link com.google.gwt.user.client.ui.HasText}, can also be given by name.
    *
    * @param driver The driver to use to communicate with the browser.
    * @param widgetClassName The type of widget to find
@@ -119,12 +120,16 @@ public class ByWidgetChildren extends GwtBy {
 
   @Override
   public List<WebElement> findElements(SearchContext context) {
-    Require.nonNull("Search Context", context);
-    final WebElement contextElem = toWebElement(context);
-    ExportedMethods m = ClientMethodsFactory.create(ExportedMethods.class, getDriver(context));
-    return m.getChildren(contextElem)
-        .stream()
-        .filter(el -> m.instanceofwidget(el, widgetClassName))
-        .collect(Collectors.toList());
+    try (RoundTrips.Scope ignore = RoundTrips.enter(this)) {
+      Require.nonNull("Search Context", context);
+      final WebElement contextElem = toWebElement(context);
+      ExportedMethods m = ClientMethodsFactory.create(ExportedMethods.class, getDriver(context));
+      return m.getChildrenOfType(contextElem, widgetClassName);
+    }
+  }
+
+  @Override
+  protected List<Object> getChainStep() {
+    return Arrays.asList("childrenWidgets", widgetClassName);
   }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver.by;
+
+import com.vertispan.webdriver.gwt.gwtdriver.RoundTrips;
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.ClientMethodsFactory;
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.ExportedMethods;
+
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.internal.Require;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * GWT-specific {@code By} implementation that finds widgets using a selector written like CSS, but
+ * matching widget types instead of element names, for example:
+ * <pre>
+ * driver.findElement(GwtBy.widgetSelector("FlowPanel.panel2 &gt; Label:text(\"child1\")"));
+ * </pre>
+ * Each part of the selector may have a widget type (a simple name like {@code Label}, a qualified
+ * name like {@code com.google.gwt.user.client.ui.Label}, or {@code *}), style names like {@code
+ * .panel2}, and the pseudo-classes {@code :text("...")}, {@code :contains("...")}, {@code :visible}
+ * and {@code :top}. Parts are separated by whitespace to find descendant widgets, or {@code >} to
+ * find child widgets.
+ * <p>
+ * The whole selector is run in the browser in a single round trip, and is only parsed the first
+ * time it is used. When searching from an element, only widgets inside of that element are
+ * returned.
+ */
+public class ByWidgetSelector extends GwtBy {
+  private final String selector;
+
+  /**
+   * Finds widgets matching the given selector.
+   *
+   * @param selector the widget selector to match
+   */
+  public ByWidgetSelector(String selector) {
+    this(null, selector);
+  }
+
+  /**
+   * Finds widgets matching the given selector.
+   *
+   * @param driver the driver to use to communicate with the browser
+   * @param selector the widget selector to match
+   */
+  public ByWidgetSelector(WebDriver driver, String selector) {
+    super(driver);
+    this.selector = Require.nonNull("Widget selector", selector);
+  }
+
+  @Override
+  public List<WebElement> findElements(SearchContext context) {
+    try (RoundTrips.Scope ignore = RoundTrips.enter(this)) {
+      Require.nonNull("Search Context", context);
+      return find(context, -1);
+    }
+  }
+
+  @Override
+  public WebElement findElement(SearchContext context) {
+    try (RoundTrips.Scope ignore = RoundTrips.enter(this)) {
+      Require.nonNull("Search Context", context);
+      List<WebElement> elements = find(context, 1);
+      if (elements.isEmpty()) {
+        throw new NoSuchElementException("Cannot find a widget matching " + selector + " in "
+            + context);
+      }
+      return elements.get(0);
+    }
+  }
+
+  private List<WebElement> find(SearchContext context, int limit) {
+    List<WebElement> contexts = context instanceof WebElement
+        ? Collections.singletonList((WebElement) context) : Collections.emptyList();
+    ExportedMethods m = ClientMethodsFactory.create(ExportedMethods.class, getDriver(context));
+    return m.findWidgetsBySelector(contexts, selector, limit);
+  }
+
+  @Override
+  protected List<Object> getChainStep() {
+    return Arrays.asList("widgetSelector", selector);
+  }
+
+  @Override
+  public String toString() {
+    return "ByWidgetSelector " + selector;
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver.by;
+
+import com.google.gwt.user.client.ui.Widget;
+
+import com.vertispan.webdriver.gwt.gwtdriver.RoundTrips;
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.ClientMethodsFactory;
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.ExportedMethods;
+
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.internal.Require;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * GWT-specific {@code By} implementation that finds widgets of a given type by the text inside of
+ * them, for example:
+ * <pre>
+ * driver.findElement(GwtBy.widgetWithText(Button.class, "Open dialog", Match.EXACT));
+ * </pre>
+ * The text of a widget which implements {@link com.google.gwt.user.client.ui.HasText} is what its
+ * {@code getText()} returns, such as the caption of a {@code DialogBox}, and for any other widget
+ * it is all of the text inside of it, even if split across several elements. This means a panel
+ * matches by the text of all of the widgets it holds, so to find a panel by part of its text use
+ * {@link Match#CONTAINS}. Widgets are searched breadth-first in the browser in a single round trip.
+ * When searching from an element, only that element and widgets inside of it are returned.
+ */
+public class ByWidgetText extends GwtBy {
+  /**
+   * How the text in the page is compared to the text being searched for.
+   */
+  public enum Match {
+    /**
+     * The text is the same, ignoring leading and trailing whitespace.
+     */
+    EXACT,
+    /**
+     * The text contains the given text.
+     */
+    CONTAINS,
+    /**
+     * The text matches the given JavaScript regular expression somewhere.
+     */
+    REGEX,
+    /**
+     * The text is the same once each run of whitespace is replaced by a single space, and leading
+     * and trailing whitespace is removed.
+     */
+    NORMALIZED
+  }
+
+  private final String widgetClassName;
+  private final String text;
+  private final Match match;
+
+  /**
+   * Finds widgets of the given type containing the given text.
+   *
+   * @param type the type of widget to find
+   * @param text the text to look for
+   */
+  public ByWidgetText(Class<? extends Widget> type, String text) {
+    this(null, type.getName(), text, Match.CONTAINS);
+  }
+
+  /**
+   * Finds widgets of the given type with text matching the given text.
+   *
+   * @param type the type of widget to find
+   * @param text the text to look for
+   * @param match how to compare the text
+   */
+  public ByWidgetText(Class<? extends Widget> type, String text, Match match) {
+    this(null, type.getName(), text, match);
+  }
+
+  /**
+   * Finds widgets of the given type with text matching the given text.
+   *
+   * @param driver the driver to use to communicate with the browser
+   * @param type the type of widget to find
+   * @param text the text to look for
+   * @param match how to compare the text
+   */
+  public ByWidgetText(WebDriver driver, Class<? extends Widget> type, String text, Match match) {
+    this(driver, type.getName(), text, match);
+  }
+
+  /**
+   * Finds widgets of the given type with text matching the given text. Interfaces implemented by
+   * widgets, such as {@link com.google.gwt.user.client.ui.HasText}, can also be given by name.
+   *
+   * @param driver the driver to use to communicate with the browser
+   * @param widgetClassName the type of widget to find
+   * @param text the text to look for
+   * @param match how to compare the text
+   */
+  public ByWidgetText(WebDriver driver, String widgetClassName, String text, Match match) {
+    super(driver);
+    this.widgetClassName = Require.nonNull("Widget type", widgetClassName);
+    this.text = Require.nonNull("Text", text);
+    this.match = Require.nonNull("Match", match);
+  }
+
+  @Override
+  public List<WebElement> findElements(SearchContext context) {
+    try (RoundTrips.Scope ignore = RoundTrips.enter(this)) {
+      Require.nonNull("Search Context", context);
+      return find(context, -1);
+    }
+  }
+
+  @Override
+  public WebElement findElement(SearchContext context) {
+    try (RoundTrips.Scope ignore = RoundTrips.enter(this)) {
+      Require.nonNull("Search Context", context);
+      List<WebElement> elements = find(context, 1);
+      if (elements.isEmpty()) {
+        throw new NoSuchElementException("Cannot find a " + widgetClassName + " with text "
+            + match.name().toLowerCase(Locale.ROOT) + " '" + text + "' in " + context);
+      }
+      return elements.get(0);
+    }
+  }
+
+  private List<WebElement> find(SearchContext context, int limit) {
+    List<WebElement> contexts = context instanceof WebElement
+        ? Collections.singletonList((WebElement) context) : Collections.emptyList();
+    ExportedMethods m = ClientMethodsFactory.create(ExportedMethods.class, getDriver(context));
+    return m.findWidgetsByText(contexts, widgetClassName, text,
+        match.name().toLowerCase(Locale.ROOT), limit);
+  }
+
+  @Override
+  public String toString() {
+    return "ByWidgetText " + widgetClassName + " " + match.name().toLowerCase(Locale.ROOT) + " '"
+        + text + "'";
+  }
+}
@@ -17,6 +17,8 @@
  */
 package com.vertispan.webdriver.gwt.gwtdriver.by;
 
+import com.vertispan.webdriver.gwt.gwtdriver.RoundTrips;
+
 import org.openqa.selenium.By;
 import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.SearchContext;
@@ -32,6 +34,9 @@ import java.util.List;
  * <p>
  * When running {@link SearchContext#findElements} to search for multiple items, uses ByChained
  * normal.
+ * <p>
+ * If every By in the chain is an xpath, css or tag name locator, or a GWT locator like {@link
+ * ByWidget}, the whole chain is run in the browser in a single round trip.
  */
 public class CheatingByChained extends GwtBy {
   private By[] bys;
@@ -42,26 +47,42 @@ public class CheatingByChained extends GwtBy {
 
   @Override
   public List<WebElement> findElements(SearchContext context) {
-    return new ByChained(bys).findElements(context);
+    try (RoundTrips.Scope ignore = RoundTrips.enter(this)) {
+      List<List<Object>> steps = FusedChain.compile(bys);
+      if (steps != null) {
+        return FusedChain.find(this, context, steps, false, -1);
+      }
+      return new ByChained(bys).findElements(context);
+    }
   }
 
   @Override
   public WebElement findElement(SearchContext context) {
-    WebElement elt = null;
-    for (By by : bys) {
-      if (elt == null) {
-        elt = by.findElement(context);
-      } else {
-        elt = by.findElement(elt);
+    try (RoundTrips.Scope ignore = RoundTrips.enter(this)) {
+      List<List<Object>> steps = FusedChain.compile(bys);
+      if (steps != null) {
+        List<WebElement> elts = FusedChain.find(this, context, steps, true, 1);
+        if (elts.isEmpty()) {
+          throw new NoSuchElementException("Cannot locate element using " + this);
+        }
+        return elts.get(0);
+      }
+      WebElement elt = null;
+      for (By by : bys) {
+        if (elt == null) {
+          elt = by.findElement(context);
+        } else {
+          elt = by.findElement(elt);
+        }
+        if (elt == null) {
+          throw new NoSuchElementException("Cannot locate element using " + this);
+        }
       }
       if (elt == null) {
         throw new NoSuchElementException("Cannot locate element using " + this);
       }
+      return elt;
     }
-    if (elt == null) {
-      throw new NoSuchElementException("Cannot locate element using " + this);
-    }
-    return elt;
   }
 
   @Override
@@ -17,6 +17,8 @@
  */
 package com.vertispan.webdriver.gwt.gwtdriver.by;
 
+import com.vertispan.webdriver.gwt.gwtdriver.RoundTrips;
+
 import org.openqa.selenium.By;
 import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.SearchContext;
@@ -34,6 +36,9 @@ import java.util.List;
  * <p>
  * Using this class should be functionally eqivelent to using ByChained, except faster in some
  * cases.
+ * <p>
+ * If every By in the chain is an xpath, css or tag name locator, or a GWT locator like {@link
+ * ByWidget}, the whole chain is run in the browser in a single round trip.
  */
 public class FasterByChained extends GwtBy {
   private By[] bys;
@@ -44,25 +49,41 @@ public class FasterByChained extends GwtBy {
 
   @Override
   public List<WebElement> findElements(SearchContext context) {
-    return new ByChained(bys).findElements(context);
+    try (RoundTrips.Scope ignore = RoundTrips.enter(this)) {
+      List<List<Object>> steps = FusedChain.compile(bys);
+      if (steps != null) {
+        return FusedChain.find(this, context, steps, false, -1);
+      }
+      return new ByChained(bys).findElements(context);
+    }
   }
 
   @Override
   public WebElement findElement(SearchContext context) {
-    By[] firstBys = new By[bys.length - 1];
-    System.arraycopy(bys, 0, firstBys, 0, firstBys.length);
-    List<WebElement> elts = new ByChained(firstBys).findElements(context);
-    if (elts == null) {
-      throw new NoSuchElementException("Cannot locate element using " + this);
-    }
-    for (WebElement elt : elts) {
-      try {
-        return elt.findElement(bys[bys.length - 1]);
-      } catch (NoSuchElementException ex) {
-        continue;
+    try (RoundTrips.Scope ignore = RoundTrips.enter(this)) {
+      List<List<Object>> steps = FusedChain.compile(bys);
+      if (steps != null) {
+        List<WebElement> elts = FusedChain.find(this, context, steps, false, 1);
+        if (elts.isEmpty()) {
+          throw new NoSuchElementException("Cannot locate element using " + this);
+        }
+        return elts.get(0);
+      }
+      By[] firstBys = new By[bys.length - 1];
+      System.arraycopy(bys, 0, firstBys, 0, firstBys.length);
+      List<WebElement> elts = new ByChained(firstBys).findElements(context);
+      if (elts == null) {
+        throw new NoSuchElementException("Cannot locate element using " + this);
       }
+      for (WebElement elt : elts) {
+        try {
+          return elt.findElement(bys[bys.length - 1]);
+        } catch (NoSuchElementException ex) {
+          continue;
+        }
+      }
+      throw new NoSuchElementException("Cannot locate element using " + this);
     }
-    throw new NoSuchElementException("Cannot locate element using " + this);
   }
 
   @Override
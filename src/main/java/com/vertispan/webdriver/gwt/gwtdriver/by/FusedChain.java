@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver.by;
+
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.ClientMethodsFactory;
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.ExportedMethods;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs a whole chain of locators in the browser at once, rather than sending a command for each
+ * locator and each element it finds along the way. Only xpath, css and tag name locators, and
+ * GwtBy locators which describe themselves with {@link GwtBy#getChainStep()}, can be run this way.
+ */
+final class FusedChain {
+  private FusedChain() {
+  }
+
+  /**
+   * Describes each locator as a step to run in the browser.
+   *
+   * @return the steps, or null if any of the locators can't be run in the browser
+   */
+  static List<List<Object>> compile(By[] bys) {
+    if (bys.length == 0) {
+      return null;
+    }
+    List<List<Object>> steps = new ArrayList<>(bys.length);
+    for (By by : bys) {
+      List<Object> step = null;
+      if (by instanceof GwtBy) {
+        step = ((GwtBy) by).getChainStep();
+      } else if (by instanceof By.Remotable) {
+        By.Remotable.Parameters parameters = ((By.Remotable) by).getRemoteParameters();
+        String using = parameters.using();
+        if ("xpath".equals(using) || "css selector".equals(using)) {
+          step = Arrays.asList(using, parameters.value());
+        } else if ("tag name".equals(using)) {
+          step = Arrays.asList("css selector", parameters.value());
+        }
+      }
+      if (step == null) {
+        return null;
+      }
+      steps.add(step);
+    }
+    return steps;
+  }
+
+  /**
+   * Runs the steps in the browser, starting from the context.
+   *
+   * @param chain the locator the steps came from, used to find the driver
+   * @param context the element or driver to search from
+   * @param steps the steps from {@link #compile(By[])}
+   * @param firstAtEachStep true to only search from the first element found by each step
+   * @param limit the most elements to return, or a negative number for no limit
+   * @return the elements found by the last step
+   */
+  static List<WebElement> find(GwtBy chain, SearchContext context, List<List<Object>> steps,
+      boolean firstAtEachStep, int limit) {
+    // no context element means searching the whole document, like the driver does
+    List<WebElement> contexts = context instanceof WebElement
+        ? Collections.singletonList((WebElement) context) : Collections.emptyList();
+    ExportedMethods m = ClientMethodsFactory.create(ExportedMethods.class,
+        chain.getDriver(context));
+    return m.findElementsByChain(contexts, steps, firstAtEachStep, limit);
+  }
+}
@@ -23,6 +23,8 @@ import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.WrapsDriver;
 
+import java.util.List;
+
 /**
  *
  */
@@ -52,6 +54,18 @@ public abstract class GwtBy extends By {
     return new FasterByChained(bys);
   }
 
+  /**
+   * Describes a chain of locators as steps that can be run in the browser in a single call, for
+   * example to also read properties of the widgets found in that same call.
+   *
+   * @param bys the locators to chain, each searching from the elements found by the one before
+   * @return the steps, or null if any of the locators can't be run in the browser
+   * @see com.vertispan.webdriver.gwt.gwtdriver.invoke.ExportedMethods#findElementsByChain
+   */
+  public static List<List<Object>> toChainSteps(By... bys) {
+    return FusedChain.compile(bys);
+  }
+
   // ----------
   // is widget
   // ----------
@@ -155,6 +169,43 @@ public abstract class GwtBy extends By {
     return new ByWidgetChildren(widgetClassName);
   }
 
+  // ------------------
+  // widget selector
+  // ------------------
+
+  /**
+   * Finds widgets matching a CSS-like selector of widget types, style names and pseudo-classes.
+   *
+   * @see ByWidgetSelector
+   */
+  public static ByWidgetSelector widgetSelector(String selector) {
+    return new ByWidgetSelector(selector);
+  }
+
+  // ------------------
+  // widget text
+  // ------------------
+
+  /**
+   * Finds widgets of the given type whose text matches.
+   *
+   * @see ByWidgetText
+   */
+  public static ByWidgetText widgetWithText(Class<? extends Widget> widgetType, String text,
+      ByWidgetText.Match match) {
+    return new ByWidgetText(widgetType, text, match);
+  }
+
+  /**
+   * Finds widgets of the given type whose text matches.
+   *
+   * @see ByWidgetText
+   */
+  public static ByWidgetText widgetWithText(String widgetClassName, String text,
+      ByWidgetText.Match match) {
+    return new ByWidgetText(null, widgetClassName, text, match);
+  }
+
 
   private final WebDriver driver;
 
@@ -167,6 +218,17 @@ public abstract class GwtBy extends By {
   }
 
 
+  /**
+   * Describes this locator as a step that can be run in the browser as part of a chain, so that
+   * {@link FasterByChained} and {@link CheatingByChained} can find elements in a single round trip.
+   *
+   * @return the step, or null if this locator can't be run as part of a chain
+   * @see com.vertispan.webdriver.gwt.gwtdriver.invoke.ExportedMethods#findElementsByChain
+   */
+  protected List<Object> getChainStep() {
+    return null;
+  }
+
   protected WebElement toWebElement(SearchContext context) {
     final WebElement contextElem;
     if (context instanceof WebElement) {
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver.client;
+
+import com.google.gwt.core.client.JavaScriptObject;
+
+/**
+ * Converts values returned from exported methods into plain JS values, so that WebDriver can send
+ * them back as JSON. Numbers and booleans become JS numbers and booleans, and arrays and lists
+ * become JS arrays, converting each item in the same way.
+ */
+public final class JsValues {
+  private JsValues() {
+  }
+
+  /**
+   * Converts the value to something WebDriver can return. Values which are already JS values (or
+   * anything else unknown, like elements) are returned as-is.
+   *
+   * @param value the value returned from an exported method
+   * @return the value to send back to the WebDriver client
+   */
+  public static Object toJs(Object value) {
+    if (value == null || value instanceof String || value instanceof Boolean
+        || value instanceof Double) {
+      return value;
+    } else if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    } else if (value instanceof Iterable) {
+      JavaScriptObject array = JavaScriptObject.createArray();
+      for (Object item : (Iterable<?>) value) {
+        push(array, toJs(item));
+      }
+      return array;
+    } else if (value instanceof Object[]) {
+      JavaScriptObject array = JavaScriptObject.createArray();
+      for (Object item : (Object[]) value) {
+        push(array, toJs(item));
+      }
+      return array;
+    } else if (value instanceof int[]) {
+      JavaScriptObject array = JavaScriptObject.createArray();
+      for (int item : (int[]) value) {
+        push(array, (double) item);
+      }
+      return array;
+    } else if (value instanceof long[]) {
+      JavaScriptObject array = JavaScriptObject.createArray();
+      for (long item : (long[]) value) {
+        push(array, (double) item);
+      }
+      return array;
+    } else if (value instanceof double[]) {
+      JavaScriptObject array = JavaScriptObject.createArray();
+      for (double item : (double[]) value) {
+        push(array, item);
+      }
+      return array;
+    } else if (value instanceof boolean[]) {
+      JavaScriptObject array = JavaScriptObject.createArray();
+      for (boolean item : (boolean[]) value) {
+        push(array, item);
+      }
+      return array;
+    }
+    return value;
+  }
+
+  private static native void push(JavaScriptObject array, Object value) /*-{
+    array.push(value);
+  }-*/;
+}
@@ -21,20 +21,33 @@ import com.google.gwt.core.client.EntryPoint;
 import com.google.gwt.core.client.GWT;
 import com.google.gwt.core.client.JavaScriptObject;
 import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayInteger;
+import com.google.gwt.core.client.JsArrayMixed;
 import com.google.gwt.core.client.JsArrayString;
 import com.google.gwt.core.client.RunAsyncCallback;
+import com.google.gwt.dom.client.Document;
 import com.google.gwt.user.client.DOM;
 import com.google.gwt.user.client.Element;
 import com.google.gwt.user.client.EventListener;
+import com.google.gwt.user.client.ui.HasEnabled;
+import com.google.gwt.user.client.ui.HasText;
+import com.google.gwt.user.client.ui.HasValue;
 import com.google.gwt.user.client.ui.HasWidgets;
+import com.google.gwt.user.client.ui.ListBox;
+import com.google.gwt.user.client.ui.PopupPanel;
+import com.google.gwt.user.client.ui.ValueBoxBase;
 import com.google.gwt.user.client.ui.Widget;
 
 import com.vertispan.webdriver.gwt.gwtdriver.invoke.ExportedMethods;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public abstract class SeleniumExporter implements EntryPoint {
@@ -46,11 +59,55 @@ public abstract class SeleniumExporter implements EntryPoint {
     String value();
   }
 
+  /**
+   * Reserved method name to invoke several exported functions at once. The only argument is an
+   * array of calls, each of which is an array of the method name followed by its arguments. The
+   * response is an array holding the response of each call, in the same order.
+   */
+  public static final String BATCH_METHOD = "batch";
+
+  /**
+   * Reserved method name to list the names of all registered functions, in the order of their ids.
+   * The first item in the response is the stamp that identifies this list.
+   */
+  public static final String MANIFEST_METHOD = "manifest";
+
+  private static final String STALE_ID = "stale method id";
+
   private static final Logger logger = Logger.getLogger(SeleniumExporter.class.getName());
-  private static final Map<String, Function> functions = new HashMap<String, Function>();
+  /**
+   * Functions are stored in the order they are registered, and their index is used as an id. Once
+   * the caller has read the {@link #MANIFEST_METHOD manifest}, calls can send {@code [stamp, id]}
+   * instead of the full name.
+   */
+  private static final Map<String, Integer> functionIds = new HashMap<String, Integer>();
+  private static final List<Function> functionTable = new ArrayList<Function>();
+  private static final List<String> functionNames = new ArrayList<String>();
+  private static final List<Metrics> functionMetrics = new ArrayList<Metrics>();
+  /**
+   * Hash of the names of all registered functions in order, so that an id from a different build
+   * of the module is never mistaken for another function.
+   */
+  private static int stamp = 0;
+
+  /**
+   * The generated exporter, which also knows the interfaces that each widget type implements.
+   */
+  private static SeleniumExporter exporter;
+  /**
+   * The most type names to remember results for on each class, as the names come from the tests
+   * and there could be any number of them.
+   */
+  private static final int TYPES_KEPT_PER_CLASS = 64;
+  /**
+   * Results of earlier type checks, for each runtime class and then each type name asked about.
+   */
+  private static final Map<Class<?>, Map<String, Boolean>> assignable =
+      new HashMap<Class<?>, Map<String, Boolean>>();
 
   @Override
   public void onModuleLoad() {
+    exporter = this;
     export(GWT.getModuleName());
     exportRegisteredTypes();
   }
@@ -72,6 +129,36 @@ public abstract class SeleniumExporter implements EntryPoint {
       return isOfType(type, instance);
     }
 
+    @Method("filterWidgets")
+    public JsArray<Element> filterWidgets(JsArray<Element> elts, String type) {
+      JsArray<Element> result = JsArray.createArray().cast();
+      for (int i = 0; i < elts.length(); i++) {
+        Element elt = elts.get(i);
+        if (instanceofwidget(elt, type) && markSeen(elt)) {
+          result.push(elt);
+        }
+      }
+      for (int i = 0; i < result.length(); i++) {
+        clearSeen(result.get(i));
+      }
+      return result;
+    }
+
+    /**
+     * Marks the element as already added to a result, returning false if it already was.
+     */
+    private native boolean markSeen(Element elt) /*-{
+      if (elt.__gwtdriver_seen) {
+        return false;
+      }
+      elt.__gwtdriver_seen = true;
+      return true;
+    }-*/;
+
+    private native void clearSeen(Element elt) /*-{
+      delete elt.__gwtdriver_seen;
+    }-*/;
+
     @Method("getContainingWidgetClass")
     public String getContainingWidgetClass(Element elt) {
       EventListener listener = DOM.getEventListener(elt);
@@ -110,45 +197,615 @@ public abstract class SeleniumExporter implements EntryPoint {
       return result;
     }
 
+    @Method("getChildrenOfType")
+    public JsArray<Element> getChildrenOfType(Element elt, String type) {
+      Widget w = findContainingWidget(elt);
+      JsArray<Element> result = JsArray.createArray().cast();
+      if (!(w instanceof HasWidgets)) {
+        return result;
+      }
+
+      for (Widget child : (HasWidgets) w) {
+        if (isOfType(type, child)) {
+          result.push(child.getElement());
+        }
+      }
+
+      return result;
+    }
+
     @Method("findDescendantWidgetElementsOfType")
     public JsArray<Element> findDescendantWidgetElementsOfType(Element elt, String type) {
+      return findDescendants(elt, type, null, 0, -1);
+    }
+
+    @Method("findDescendantWidgetElementsOfTypeInRange")
+    public JsArray<Element> findDescendantWidgetElementsOfTypeInRange(Element elt, String type,
+        int offset, int limit) {
+      return findDescendants(elt, type, null, offset, limit);
+    }
+
+    @Method("findDescendantWidgetElementsOfTypeWithOptions")
+    public JsArray<Element> findDescendantWidgetElementsOfTypeWithOptions(Element elt,
+        String type, TraversalOptionsJso options, int offset, int limit) {
+      return findDescendants(elt, type, options, offset, limit);
+    }
+
+    @Method("findDescendantWidgetElements")
+    public JsArray<Element> findDescendantWidgetElements(Element elt) {
+      return findDescendantWidgetElementsOfType(elt, Widget.class.getName());
+    }
+
+    @Method("findFirstDescendantWidgetElementsOfType")
+    public Element findFirstDescendantWidgetElementsOfType(Element context, String className) {
+      JsArray<Element> widgetEls = findDescendants(context, className, null, 0, 1);
+      if (widgetEls.length() == 0) {
+        return null;
+      }
+      return widgetEls.get(0);
+    }
+
+    /**
+     * Visits the descendants of the containing widget breadth-first, skipping the first {@code
+     * offset} matches, and stopping as soon as {@code limit} matches have been found. A negative
+     * limit finds all matches. If options are given, the descendants of some widgets may not be
+     * visited at all, and matches may also have to pass visibility checks. Widgets hidden with
+     * {@code setVisible(false)} or detached can't contain visible or attached ones, so their
+     * descendants are skipped when those checks are required.
+     */
+    private JsArray<Element> findDescendants(Element elt, String type, TraversalOptionsJso options,
+        int offset, int limit) {
       JsArray<Element> result = JsArray.createArray().cast();
       final Widget rootWidget = findContainingWidget(elt);
-      if (rootWidget == null) {
+      if (rootWidget == null || limit == 0) {
         return result;
       }
+      int maxDepth = options == null ? -1 : options.getMaxDepth();
+      boolean stopAtMatch = options != null && options.isStopAtMatch();
+      JsArrayString skipTypes = options == null ? null : options.getSkipTypes();
+      JsArrayString visibility = options == null ? null : options.getVisibility();
+      if (WidgetIndex.isEnabled() && maxDepth < 0 && !stopAtMatch
+          && (skipTypes == null || skipTypes.length() == 0)
+          && (visibility == null || visibility.length() == 0)) {
+        return WidgetIndex.find(rootWidget, type, offset, limit);
+      }
+      boolean requireVisible = false;
+      boolean requireAttached = false;
+      boolean requireInViewport = false;
+      boolean requireNotCovered = false;
+      for (int i = 0; visibility != null && i < visibility.length(); i++) {
+        switch (visibility.get(i)) {
+          case "VISIBLE":
+            requireVisible = true;
+            break;
+          case "ATTACHED":
+            requireAttached = true;
+            break;
+          case "IN_VIEWPORT":
+            requireInViewport = true;
+            break;
+          case "NOT_COVERED":
+            requireNotCovered = true;
+            break;
+          default:
+            throw new IllegalArgumentException("Unknown visibility check " + visibility.get(i));
+        }
+      }
 
+      // the depth of each widget to visit, in the same order
       Deque<Widget> nodesToVisit = new ArrayDeque<>();
+      Deque<Integer> depths = new ArrayDeque<>();
       nodesToVisit.push(rootWidget);
+      depths.push(0);
 
       // visit all breadth-first
+      int skipped = 0;
       while (!nodesToVisit.isEmpty()) {
         Widget curr = nodesToVisit.removeFirst();
-        if (curr instanceof HasWidgets) {
+        int depth = depths.removeFirst();
+        // only push if it's of the right type ; skip rootWidget
+        boolean match = curr != rootWidget && isOfType(type, curr)
+            && (!requireVisible || isShown(curr))
+            && (!requireAttached || curr.isAttached())
+            && (!requireInViewport || isInViewport(curr.getElement()))
+            && (!requireNotCovered || isNotCovered(curr.getElement()));
+        if (match) {
+          if (skipped < offset) {
+            skipped++;
+          } else {
+            result.push(curr.getElement());
+            if (result.length() == limit) {
+              break;
+            }
+          }
+        }
+        // widgets inside of a hidden or detached widget are hidden or detached too, but a widget
+        // without a size of its own may still hold visible widgets
+        boolean prune = curr != rootWidget && ((requireVisible && !curr.isVisible())
+            || (requireAttached && !curr.isAttached()));
+        if (curr instanceof HasWidgets && !prune && depth != maxDepth && !(match && stopAtMatch)
+            && !(curr != rootWidget && isOfAnyType(skipTypes, curr))) {
           for (Widget child : ((HasWidgets) curr)) {
             nodesToVisit.add(child);
+            depths.add(depth + 1);
           }
         }
-        // only push if it's of the right type ; skip rootWidget
-        if (curr != rootWidget && isOfType(type, curr)) {
-          result.push(curr.getElement());
+      }
+      return result;
+    }
+
+    private boolean isOfAnyType(JsArrayString types, Object instance) {
+      if (types == null) {
+        return false;
+      }
+      for (int i = 0; i < types.length(); i++) {
+        if (isOfType(types.get(i), instance)) {
+          return true;
         }
       }
+      return false;
+    }
+
+    @Method("findElementsByChain")
+    public JsArray<Element> findElementsByChain(JsArray<Element> contexts,
+        JsArray<ChainStep> steps, boolean firstAtEachStep, int limit) {
+      // no contexts means the whole document, like searching from the driver
+      JsArray<Element> current = contexts;
+      if (current.length() == 0) {
+        current = JsArray.createArray().cast();
+        current.push(Document.get().<Element>cast());
+      }
+      for (int i = 0; i < steps.length() && current.length() != 0; i++) {
+        boolean last = i == steps.length() - 1;
+        int stepLimit = firstAtEachStep ? 1 : last ? limit : -1;
+        JsArray<Element> next = JsArray.createArray().cast();
+        for (int j = 0; j < current.length(); j++) {
+          int remaining = stepLimit < 0 ? -1 : stepLimit - next.length();
+          JsArray<Element> found = applyStep(steps.get(i), current.get(j), remaining);
+          for (int k = 0; k < found.length(); k++) {
+            next.push(found.get(k));
+          }
+          if (stepLimit >= 0 && next.length() >= stepLimit) {
+            break;
+          }
+        }
+        // xpath and css steps find every match, only the first is searched from when chaining
+        // findElement calls
+        if (firstAtEachStep && next.length() > 1) {
+          next.setLength(1);
+        }
+        current = next;
+      }
+      return current;
+    }
+
+    private JsArray<Element> applyStep(ChainStep step, Element context, int limit) {
+      String kind = step.getKind();
+      if ("xpath".equals(kind)) {
+        return evaluateXpath(context, step.getValue());
+      } else if ("css selector".equals(kind)) {
+        return querySelectorAll(context, step.getValue());
+      }
+      // widget steps start from the body rather than the document
+      Element elt = context == Document.get().<Element>cast()
+          ? Document.get().getBody().<Element>cast() : context;
+      JsArray<Element> result = JsArray.createArray().cast();
+      if ("isWidget".equals(kind)) {
+        if (instanceofwidget(elt, step.getValue())) {
+          result.push(elt);
+        }
+      } else if ("nearestWidget".equals(kind)) {
+        Element nearest = getContainingWidgetEltOfType(elt, step.getValue());
+        if (nearest != null) {
+          result.push(nearest);
+        }
+      } else if ("descendantWidget".equals(kind)) {
+        return findDescendants(elt, step.getValue(), step.getOptions(), 0, limit);
+      } else if ("childrenWidgets".equals(kind)) {
+        return getChildrenOfType(elt, step.getValue());
+      } else if ("widgetSelector".equals(kind)) {
+        JsArray<Element> contexts = JsArray.createArray().cast();
+        if (context != Document.get().<Element>cast()) {
+          contexts.push(context);
+        }
+        return findWidgetsBySelector(contexts, step.getValue(), limit);
+      } else {
+        throw new IllegalArgumentException("Unknown chain step " + kind);
+      }
       return result;
     }
 
-    @Method("findDescendantWidgetElements")
-    public JsArray<Element> findDescendantWidgetElements(Element elt) {
-      return findDescendantWidgetElementsOfType(elt, Widget.class.getName());
+    private native JsArray<Element> evaluateXpath(Element context, String expression) /*-{
+      var doc = context.ownerDocument || context;
+      var snapshot = doc.evaluate(expression, context, null, 7, null);
+      var result = [];
+      for (var i = 0; i < snapshot.snapshotLength; i++) {
+        var node = snapshot.snapshotItem(i);
+        if (node.nodeType == 1) {
+          result.push(node);
+        }
+      }
+      return result;
+    }-*/;
+
+    private native JsArray<Element> querySelectorAll(Element context, String selector) /*-{
+      var nodes = context.querySelectorAll(selector);
+      var result = [];
+      for (var i = 0; i < nodes.length; i++) {
+        result.push(nodes[i]);
+      }
+      return result;
+    }-*/;
+
+    @Method("findWidgetsBySelector")
+    public JsArray<Element> findWidgetsBySelector(JsArray<Element> contexts, String selector,
+        int limit) {
+      WidgetSelector compiled = WidgetSelector.compile(selector);
+      JsArray<Element> result = JsArray.createArray().cast();
+      if (contexts.length() == 0) {
+        // search the whole page, starting from the root panel itself
+        Widget root = findContainingWidget(Document.get().getBody().<Element>cast());
+        if (root != null) {
+          addElements(compiled.find(root, true), null, result, limit);
+        }
+        return result;
+      }
+      for (int i = 0; i < contexts.length() && result.length() != limit; i++) {
+        Element context = contexts.get(i);
+        Widget root = findContainingWidget(context);
+        if (root != null) {
+          addElements(compiled.find(root, false), context, result, limit);
+        }
+      }
+      return result;
     }
 
-    @Method("findFirstDescendantWidgetElementsOfType")
-    public Element findFirstDescendantWidgetElementsOfType(Element context, String className) {
-      JsArray<Element> widgetEls = findDescendantWidgetElementsOfType(context, className);
-      if (widgetEls.length() == 0) {
-        return null;
+    /**
+     * Adds the root element of each widget to the result, if it is inside of the context element.
+     */
+    private void addElements(List<Widget> widgets, Element context, JsArray<Element> result,
+        int limit) {
+      for (Widget widget : widgets) {
+        if (result.length() == limit) {
+          return;
+        }
+        Element elt = widget.getElement().cast();
+        if (context == null || (context != elt && context.isOrHasChild(elt))) {
+          result.push(elt);
+        }
+      }
+    }
+
+    @Method("findWidgetsByText")
+    public JsArray<Element> findWidgetsByText(JsArray<Element> contexts, String type, String text,
+        String match, int limit) {
+      JsArray<Element> result = JsArray.createArray().cast();
+      if (contexts.length() == 0) {
+        contexts = JsArray.createArray().cast();
+        contexts.push(Document.get().getBody().<Element>cast());
+      }
+      JavaScriptObject textTest = createTextTest(text, match);
+      for (int i = 0; i < contexts.length() && result.length() != limit; i++) {
+        Element context = contexts.get(i);
+        Widget root = findContainingWidget(context);
+        if (root == null) {
+          continue;
+        }
+        Deque<Widget> nodesToVisit = new ArrayDeque<>();
+        nodesToVisit.add(root);
+        while (!nodesToVisit.isEmpty() && result.length() != limit) {
+          Widget curr = nodesToVisit.removeFirst();
+          Element elt = curr.getElement();
+          if (context.isOrHasChild(elt) && isOfType(type, curr) && !contains(result, elt)
+              && testText(textTest, getText(curr))) {
+            result.push(elt);
+          }
+          if (curr instanceof HasWidgets) {
+            for (Widget child : (HasWidgets) curr) {
+              nodesToVisit.add(child);
+            }
+          }
+        }
+      }
+      return result;
+    }
+
+    /**
+     * @return the text the widget shows, from {@link HasText} if it has it, otherwise all of the
+     * text inside its element
+     */
+    private String getText(Widget widget) {
+      if (widget instanceof HasText) {
+        return ((HasText) widget).getText();
+      }
+      return widget.getElement().getInnerText();
+    }
+
+    private static native JavaScriptObject createTextTest(String text, String match) /*-{
+      var normalize = function(value) {
+        return value.replace(/\s+/g, ' ').trim();
+      };
+      if (match == 'exact') {
+        return function(value) { return value.trim() == text; };
+      } else if (match == 'contains') {
+        return function(value) { return value.indexOf(text) != -1; };
+      } else if (match == 'regex') {
+        var regex = new RegExp(text);
+        return function(value) { return regex.test(value); };
+      } else if (match == 'normalized') {
+        var normalized = normalize(text);
+        return function(value) { return normalize(value) == normalized; };
+      }
+      throw new Error('Unknown text match ' + match);
+    }-*/;
+
+    private static native boolean testText(JavaScriptObject test, String value) /*-{
+      return value != null && test(value);
+    }-*/;
+
+    private static native boolean contains(JsArray<Element> elements, Element elt) /*-{
+      return elements.indexOf(elt) != -1;
+    }-*/;
+
+    @Method("enableWidgetIndex")
+    public boolean enableWidgetIndex() {
+      return WidgetIndex.enable();
+    }
+
+    @Method("disableWidgetIndex")
+    public void disableWidgetIndex() {
+      WidgetIndex.disable();
+    }
+
+    @Method("getWidgetTree")
+    public JsArrayMixed getWidgetTree(JsArray<Element> contexts, boolean details,
+        boolean lazyElements) {
+      Widget rootWidget = findContainingWidget(contexts.length() == 0
+          ? Document.get().getBody().<Element>cast() : contexts.get(0));
+      return WidgetTree.describe(rootWidget, details, lazyElements);
+    }
+
+    @Method("getWidgetTreeChanges")
+    public JsArrayMixed getWidgetTreeChanges(int version, boolean lazyElements) {
+      return WidgetTree.describeChanges(version, lazyElements);
+    }
+
+    @Method("getWidgetProperties")
+    public JsArray<JsArrayMixed> getWidgetProperties(JsArray<Element> elts,
+        JsArrayString properties) {
+      JsArray<JsArrayMixed> result = JsArray.createArray().cast();
+      for (int i = 0; i < elts.length(); i++) {
+        JsArrayMixed row = JsArray.createArray().cast();
+        addProperties(row, elts.get(i), properties);
+        result.push(row);
+      }
+      return result;
+    }
+
+    @Method("findWidgetProperties")
+    public JsArray<JsArrayMixed> findWidgetProperties(JsArray<Element> contexts,
+        JsArray<ChainStep> steps, JsArrayString properties) {
+      JsArray<Element> elts = findElementsByChain(contexts, steps, false, -1);
+      JsArray<JsArrayMixed> result = JsArray.createArray().cast();
+      for (int i = 0; i < elts.length(); i++) {
+        JsArrayMixed row = JsArray.createArray().cast();
+        push(row, elts.get(i));
+        addProperties(row, elts.get(i), properties);
+        result.push(row);
+      }
+      return result;
+    }
+
+    /**
+     * Adds each property of the nearest widget containing the element to the row.
+     */
+    private void addProperties(JsArrayMixed row, Element elt, JsArrayString properties) {
+      Widget widget = elt == null ? null : findContainingWidget(elt);
+      for (int j = 0; j < properties.length(); j++) {
+        push(row, widget == null ? null : getProperty(widget, properties.get(j)));
+      }
+    }
+
+    /**
+     * Reads one property of the widget, as a String or Boolean, or null if the widget doesn't have
+     * that property.
+     */
+    private Object getProperty(Widget widget, String property) {
+      Element elt = widget.getElement();
+      if (property.startsWith("attribute:")) {
+        return getAttribute(elt, property.substring("attribute:".length()));
+      }
+      switch (property) {
+        case "type":
+          return widget.getClass().getName();
+        case "text":
+          return widget instanceof HasText ? ((HasText) widget).getText() : elt.getInnerText();
+        case "value":
+          if (widget instanceof ValueBoxBase) {
+            return ((ValueBoxBase<?>) widget).getText();
+          } else if (widget instanceof ListBox) {
+            return ((ListBox) widget).getSelectedValue();
+          } else if (widget instanceof HasValue) {
+            Object value = ((HasValue<?>) widget).getValue();
+            return value == null ? null : String.valueOf(value);
+          }
+          return null;
+        case "enabled":
+          return widget instanceof HasEnabled ? ((HasEnabled) widget).isEnabled() : null;
+        case "styleNames":
+          return widget.getStyleName();
+        case "visible":
+          return isShown(widget);
+        default:
+          throw new IllegalArgumentException("Unknown widget property " + property);
+      }
+    }
+
+    @Method("getWidgetState")
+    public JsArray<JsArrayMixed> getWidgetState(JsArray<Element> elts) {
+      JsArray<JsArrayMixed> result = JsArray.createArray().cast();
+      for (int i = 0; i < elts.length(); i++) {
+        Element elt = elts.get(i);
+        Widget widget = elt == null ? null : findContainingWidget(elt);
+        if (widget == null) {
+          result.push(null);
+          continue;
+        }
+        JsArrayMixed row = JsArray.createArray().cast();
+        row.push(widget.getClass().getName());
+        JsArrayInteger selected = null;
+        if (widget instanceof ListBox) {
+          ListBox listBox = (ListBox) widget;
+          push(row, listBox.getSelectedValue());
+          selected = JsArray.createArray().cast();
+          for (int j = 0; j < listBox.getItemCount(); j++) {
+            if (listBox.isItemSelected(j)) {
+              selected.push(j);
+            }
+          }
+        } else if (widget instanceof HasValue) {
+          push(row, toStateValue(((HasValue<?>) widget).getValue()));
+        } else {
+          push(row, null);
+        }
+        push(row, widget instanceof HasText ? ((HasText) widget).getText() : null);
+        push(row, widget instanceof HasEnabled ? ((HasEnabled) widget).isEnabled() : null);
+        push(row, selected);
+        result.push(row);
+      }
+      return result;
+    }
+
+    /**
+     * Strings and booleans are sent as they are, numbers and dates as JS numbers, and any other
+     * value as its string.
+     */
+    private Object toStateValue(Object value) {
+      if (value == null || value instanceof String || value instanceof Boolean) {
+        return value;
+      } else if (value instanceof Number) {
+        return ((Number) value).doubleValue();
+      } else if (value instanceof Date) {
+        return (double) ((Date) value).getTime();
+      }
+      return String.valueOf(value);
+    }
+
+    private native String getAttribute(Element elt, String name) /*-{
+      return elt.getAttribute(name);
+    }-*/;
+
+    private native void push(JsArrayMixed array, Object value) /*-{
+      array.push(value);
+    }-*/;
+
+    @Method("getElementsForHandles")
+    public JsArray<Element> getElementsForHandles(JsArrayInteger handles) {
+      JsArray<Element> result = JsArray.createArray().cast();
+      for (int i = 0; i < handles.length(); i++) {
+        result.push(WidgetHandles.get(handles.get(i)));
+      }
+      return result;
+    }
+
+    @Method("getHandlesForElements")
+    public JsArrayInteger getHandlesForElements(JsArray<Element> elts) {
+      JsArrayInteger result = JsArray.createArray().cast();
+      for (int i = 0; i < elts.length(); i++) {
+        result.push(WidgetHandles.findHandle(elts.get(i)));
+      }
+      return result;
+    }
+
+    @Method("findTopmostPopup")
+    public Element findTopmostPopup(String type) {
+      JsArray<Element> candidates =
+          findDescendants(Document.get().getBody().<Element>cast(), type, null, 0, -1);
+      Element top = null;
+      int topZIndex = 0;
+      for (int i = 0; i < candidates.length(); i++) {
+        Element elt = candidates.get(i);
+        Widget widget = (Widget) DOM.getEventListener(elt);
+        if (!widget.isVisible()
+            || (widget instanceof PopupPanel && !((PopupPanel) widget).isShowing())) {
+          continue;
+        }
+        // of popups with the same z-index, the later one in the document is drawn on top
+        int zIndex = getZIndex(elt);
+        if (top == null || zIndex > topZIndex || (zIndex == topZIndex && isAfter(elt, top))) {
+          top = elt;
+          topZIndex = zIndex;
+        }
+      }
+      return top;
+    }
+
+    private native boolean isAfter(Element elt, Element other) /*-{
+      // DOCUMENT_POSITION_PRECEDING, other is before elt
+      return !!(elt.compareDocumentPosition(other) & 2);
+    }-*/;
+
+    @Method("getWidgetHandle")
+    public int getWidgetHandle(Element elt) {
+      Widget widget = findContainingWidget(elt);
+      return widget == null ? -1 : WidgetHandles.handleOf(widget.getElement());
+    }
+
+    @Method("findWidgetHandles")
+    public JsArrayInteger findWidgetHandles(int context, String type, int offset, int limit) {
+      Element elt = context == -1 ? Document.get().getBody().<Element>cast()
+          : WidgetHandles.get(context);
+      return elt == null ? null : toHandles(findDescendants(elt, type, null, offset, limit));
+    }
+
+    @Method("getChildWidgetHandles")
+    public JsArrayInteger getChildWidgetHandles(int handle, String type) {
+      Element elt = WidgetHandles.get(handle);
+      return elt == null ? null : toHandles(getChildrenOfType(elt, type));
+    }
+
+    @Method("getNearestWidgetHandle")
+    public int getNearestWidgetHandle(int handle, String type) {
+      Element elt = WidgetHandles.get(handle);
+      if (elt == null) {
+        return -2;
+      }
+      Element nearest = getContainingWidgetEltOfType(elt, type);
+      return nearest == null ? -1 : WidgetHandles.handleOf(nearest);
+    }
+
+    private JsArrayInteger toHandles(JsArray<Element> elts) {
+      JsArrayInteger result = JsArray.createArray().cast();
+      for (int i = 0; i < elts.length(); i++) {
+        result.push(WidgetHandles.handleOf(elts.get(i)));
+      }
+      return result;
+    }
+
+    @Method("getMethodMetrics")
+    public JsArray<JsArrayMixed> getMethodMetrics() {
+      JsArray<JsArrayMixed> result = JsArray.createArray().cast();
+      for (int i = 0; i < functionNames.size(); i++) {
+        Metrics metrics = functionMetrics.get(i);
+        if (metrics.invocations == 0) {
+          continue;
+        }
+        JsArrayMixed row = JsArray.createArray().cast();
+        row.push(functionNames.get(i));
+        row.push(metrics.invocations);
+        row.push(metrics.errors);
+        row.push(metrics.totalMillis);
+        row.push(metrics.maxMillis);
+        result.push(row);
+      }
+      return result;
+    }
+
+    @Method("resetMethodMetrics")
+    public void resetMethodMetrics() {
+      for (int i = 0; i < functionMetrics.size(); i++) {
+        functionMetrics.set(i, new Metrics());
       }
-      return widgetEls.shift();
     }
 
     private Widget findContainingWidget(Element elt) {
@@ -173,12 +830,100 @@ public abstract class SeleniumExporter implements EntryPoint {
     }
   }
 
+  /**
+   * One step in a chain of locators, sent as {@code [kind, value, options]}, where the kind is
+   * either a WebDriver locator strategy like "xpath", or the name of a widget locator.
+   */
+  private static final class ChainStep extends JavaScriptObject {
+    protected ChainStep() {
+    }
+
+    public native String getKind() /*-{
+      return this[0];
+    }-*/;
+
+    public native String getValue() /*-{
+      return this[1];
+    }-*/;
+
+    public native TraversalOptionsJso getOptions() /*-{
+      return this[2] || null;
+    }-*/;
+  }
+
   protected abstract void exportRegisteredTypes();
 
-  private static boolean isOfType(String type, Object instance) {
-    Class<?> currentType = instance.getClass();
+  /**
+   * Generated table of the interfaces directly implemented by every widget class, and the classes
+   * and interfaces they extend. Superclasses are found at runtime instead, so each type is only
+   * listed once.
+   *
+   * @param type the binary name of a class or interface, as returned by {@link Class#getName()}
+   * @return the binary names of the interfaces it directly implements or extends, or null if none
+   * are known
+   */
+  protected abstract String[] getInterfaces(String type);
+
+  /**
+   * @return the computed z-index of the element, or 0 if it is auto
+   */
+  static native int getZIndex(Element elt) /*-{
+    var zIndex = parseInt($wnd.getComputedStyle(elt).zIndex, 10);
+    return isNaN(zIndex) ? 0 : zIndex;
+  }-*/;
+
+  /**
+   * @return true if the widget is visible and takes up space on the page
+   */
+  static boolean isShown(Widget widget) {
+    com.google.gwt.dom.client.Element elt = widget.getElement();
+    return widget.isVisible() && (elt.getOffsetWidth() != 0 || elt.getOffsetHeight() != 0);
+  }
+
+  /**
+   * @return true if any part of the element is inside of the browser window
+   */
+  static native boolean isInViewport(Element elt) /*-{
+    var rect = elt.getBoundingClientRect();
+    var doc = elt.ownerDocument.documentElement;
+    var height = $wnd.innerHeight || doc.clientHeight;
+    var width = $wnd.innerWidth || doc.clientWidth;
+    return (rect.width > 0 || rect.height > 0)
+        && rect.bottom > 0 && rect.right > 0 && rect.top < height && rect.left < width;
+  }-*/;
+
+  /**
+   * @return true if the center of the element is inside of the browser window, and isn't covered
+   * by another element, such as the glass panel of a modal popup
+   */
+  static native boolean isNotCovered(Element elt) /*-{
+    var rect = elt.getBoundingClientRect();
+    var hit = elt.ownerDocument.elementFromPoint(rect.left + rect.width / 2,
+        rect.top + rect.height / 2);
+    return hit != null && (hit == elt || elt.contains(hit));
+  }-*/;
+
+  static boolean isOfType(String type, Object instance) {
+    Class<?> instanceType = instance.getClass();
+    Map<String, Boolean> results = assignable.get(instanceType);
+    if (results == null) {
+      results = new HashMap<String, Boolean>();
+      assignable.put(instanceType, results);
+    }
+    Boolean result = results.get(type);
+    if (result == null) {
+      result = isSubtypeOf(type, instanceType);
+      if (results.size() >= TYPES_KEPT_PER_CLASS) {
+        results.clear();
+      }
+      results.put(type, result);
+    }
+    return result;
+  }
+
+  private static boolean isSubtypeOf(String type, Class<?> currentType) {
     while (currentType != null && !currentType.getName().equals(Object.class.getName())) {
-      if (type.equals(currentType.getName())) {
+      if (type.equals(currentType.getName()) || implementsInterface(type, currentType.getName())) {
         return true;
       }
       currentType = currentType.getSuperclass();
@@ -186,14 +931,40 @@ public abstract class SeleniumExporter implements EntryPoint {
     return false;
   }
 
+  private static boolean implementsInterface(String type, String typeName) {
+    String[] interfaces = exporter == null ? null : exporter.getInterfaces(typeName);
+    if (interfaces == null) {
+      return false;
+    }
+    for (String iface : interfaces) {
+      if (type.equals(iface) || implementsInterface(type, iface)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public static void registerFunction(String declaringType, String methodName, Function func) {
-    functions.put(declaringType + "::" + methodName, func);
+    String name = declaringType + "::" + methodName;
+    Integer id = functionIds.get(name);
+    if (id == null) {
+      functionIds.put(name, functionTable.size());
+      functionTable.add(func);
+      functionNames.add(name);
+      functionMetrics.add(new Metrics());
+      stamp = (stamp + name).hashCode();
+    } else {
+      functionTable.set(id, func);
+    }
   }
 
   private static native void export(String moduleName) /*-{
     $wnd['_' + moduleName + '_se'] = $entry(function () {
       @com.vertispan.webdriver.gwt.gwtdriver.client.SeleniumExporter::invoke(*)(arguments);
     });
+    $wnd['_' + moduleName + '_se_sync'] = $entry(function () {
+      return @com.vertispan.webdriver.gwt.gwtdriver.client.SeleniumExporter::invokeSync(*)(arguments);
+    });
   }-*/;
 
   private final static class Callback extends JavaScriptObject {
@@ -207,32 +978,42 @@ public abstract class SeleniumExporter implements EntryPoint {
     public native void fail(String message) /*-{
       this(['error: ' + message]);
     }-*/;
+
+    public native void respond(JavaScriptObject response) /*-{
+      this(response);
+    }-*/;
   }
 
   private static native Object get(JsArray<?> array, int i) /*-{
     return array[i];
   }-*/;
 
+  private static native JavaScriptObject success(Object result) /*-{
+    return ['success', result];
+  }-*/;
+
+  private static native JavaScriptObject failure(String message) /*-{
+    return ['error: ' + message];
+  }-*/;
+
+  private static native JsArray<?> slice(JsArray<?> array, int start) /*-{
+    return $wnd.Array.prototype.slice.call(array, start);
+  }-*/;
+
   static void invoke(final JsArray<?> args) {
     final Callback callback = args.get(args.length() - 1).cast();
     GWT.runAsync(new RunAsyncCallback() {
       @Override
       public void onSuccess() {
-        final String method = args.<JsArrayString>cast().get(0);
-        logger.info("running method: " + method);
+        final Object method = get(args, 0);
         JsArray<?> functionArgs = splice(args);
-        if (functions.containsKey(method)) {
-          try {
-            Object response = functions.get(method).apply(functionArgs);
-            logger.info("response ready: " + response);
-            callback.invoke(response);
-          } catch (Exception e) {
-            logger.severe("Error occurred: " + e.getMessage());
-            callback.fail("Error occurred: " + e.getMessage());
-          }
+        if (BATCH_METHOD.equals(method)) {
+          JsArray<JsArray<?>> calls = functionArgs.get(0).cast();
+          callback.invoke(applyBatch(calls));
+        } else if (MANIFEST_METHOD.equals(method)) {
+          callback.invoke(getManifest());
         } else {
-          logger.severe("Method could not be invoked: " + method);
-          callback.fail("Error: could not find method '" + method + "'");
+          callback.respond(apply(method, functionArgs));
         }
       }
 
@@ -247,6 +1028,110 @@ public abstract class SeleniumExporter implements EntryPoint {
     });
   }
 
+  /**
+   * Runs the method right away rather than waiting for a split point, for use with WebDriver's
+   * {@code executeScript}. Unlike {@link #invoke(JsArray)}, there is no callback, the response is
+   * returned directly.
+   */
+  static JavaScriptObject invokeSync(JsArray<?> args) {
+    Object method = get(args, 0);
+    JsArray<?> functionArgs = slice(args, 1);
+    if (BATCH_METHOD.equals(method)) {
+      JsArray<JsArray<?>> calls = functionArgs.get(0).cast();
+      return success(applyBatch(calls));
+    } else if (MANIFEST_METHOD.equals(method)) {
+      return success(getManifest());
+    }
+    return apply(method, functionArgs);
+  }
+
+  /**
+   * Runs each call in the batch in order, collecting the success or error response of each one, so
+   * that a failing call doesn't prevent the rest of the batch from running.
+   */
+  private static JsArray<JavaScriptObject> applyBatch(JsArray<JsArray<?>> calls) {
+    JsArray<JavaScriptObject> responses = JsArray.createArray().cast();
+    for (int i = 0; i < calls.length(); i++) {
+      JsArray<?> call = calls.get(i);
+      responses.push(apply(get(call, 0), slice(call, 1)));
+    }
+    return responses;
+  }
+
+  private static JsArrayMixed getManifest() {
+    JsArrayMixed manifest = JsArray.createArray().cast();
+    manifest.push(stamp);
+    for (String name : functionNames) {
+      manifest.push(name);
+    }
+    return manifest;
+  }
+
+  /**
+   * Calls the function referred to either by name, or by {@code [stamp, id]}.
+   */
+  private static JavaScriptObject apply(Object method, JsArray<?> functionArgs) {
+    final int id;
+    if (method instanceof String) {
+      Integer found = functionIds.get(method);
+      if (found == null) {
+        logger.severe("Method could not be invoked: " + method);
+        return failure("Error: could not find method '" + method + "'");
+      }
+      id = found;
+    } else {
+      JsArrayInteger ref = ((JavaScriptObject) method).cast();
+      if (ref.get(0) != stamp) {
+        return failure(STALE_ID);
+      }
+      id = ref.get(1);
+      if (id < 0 || id >= functionTable.size()) {
+        return failure(STALE_ID);
+      }
+    }
+    if (logger.isLoggable(Level.FINE)) {
+      logger.fine("running method: " + functionNames.get(id));
+    }
+    Metrics metrics = functionMetrics.get(id);
+    double start = now();
+    try {
+      Object response = functionTable.get(id).apply(functionArgs);
+      metrics.record(now() - start, false);
+      if (logger.isLoggable(Level.FINE)) {
+        logger.fine("response ready: " + response);
+      }
+      return success(response);
+    } catch (Exception e) {
+      metrics.record(now() - start, true);
+      logger.severe("Error occurred: " + e.getMessage());
+      return failure("Error occurred: " + e.getMessage());
+    }
+  }
+
+  private static native double now() /*-{
+    var performance = $wnd.performance;
+    return performance && performance.now ? performance.now() : Date.now();
+  }-*/;
+
+  /**
+   * Running totals of the calls made to a single exported function, so that tests can find out
+   * which ones are taking up time in the browser.
+   */
+  private static final class Metrics {
+    private int invocations;
+    private int errors;
+    private double totalMillis;
+    private double maxMillis;
+
+    private void record(double millis, boolean failed) {
+      invocations++;
+      if (failed) {
+        errors++;
+      }
+      totalMillis += millis;
+      maxMillis = Math.max(maxMillis, millis);
+    }
+  }
 
   /**
    * From selenium's JavascriptExecutor:
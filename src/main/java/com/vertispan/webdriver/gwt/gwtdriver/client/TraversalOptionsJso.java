@@ -0,0 +1,59 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver.client;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArrayString;
+
+/**
+ * Limits on a search of the descendants of a widget, sent as an array of {@code [maxDepth,
+ * stopAtMatch, skipTypes, visibility]}, any of which may be missing. This is the browser side of
+ * {@link com.vertispan.webdriver.gwt.gwtdriver.invoke.TraversalOptions}.
+ */
+public final class TraversalOptionsJso extends JavaScriptObject {
+  protected TraversalOptionsJso() {
+  }
+
+  /**
+   * @return the deepest level of descendants to visit, where children are at depth 1, or -1 to
+   * visit all descendants
+   */
+  public native int getMaxDepth() /*-{
+    return this[0] == null ? -1 : this[0];
+  }-*/;
+
+  /**
+   * @return true if the descendants of a widget which matches the search should not be visited
+   */
+  public native boolean isStopAtMatch() /*-{
+    return !!this[1];
+  }-*/;
+
+  /**
+   * @return the types of widgets whose descendants should not be visited
+   */
+  public native JsArrayString getSkipTypes() /*-{
+    return this[2] || [];
+  }-*/;
+
+  /**
+   * @return the names of the visibility checks each match must pass, such as "VISIBLE" or
+   * "NOT_COVERED"
+   */
+  public native JsArrayString getVisibility() /*-{
+    return this[3] || [];
+  }-*/;
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver.client;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.user.client.Element;
+import com.google.gwt.user.client.Random;
+
+/**
+ * Small integer ids for the root elements of widgets, so that large results can refer to widgets
+ * by number instead of sending an element reference for each one, which WebDriver has to track.
+ * The id is kept on the element itself, so the same element always gets the same id while it stays
+ * on the page. Elements which have been removed from the page are dropped from the table as it
+ * grows, so the table doesn't keep detached widgets alive, and they get a new id if they return.
+ * <p>
+ * The upper bits of each id are a token picked at random when the page loads, so that an id kept
+ * by the client from before the page was reloaded isn't taken to mean some other widget.
+ */
+final class WidgetHandles {
+  private static final int MIN_PRUNE_SIZE = 64;
+  private static final int COUNTER_BITS = 20;
+  private static final int COUNTER_MASK = (1 << COUNTER_BITS) - 1;
+  private static final int TOKEN = (1 + Random.nextInt(2047)) << COUNTER_BITS;
+
+  private static final JavaScriptObject elements = JavaScriptObject.createObject();
+  private static int nextHandle = 0;
+  private static int size = 0;
+  private static int pruneSize = MIN_PRUNE_SIZE;
+
+  private WidgetHandles() {
+  }
+
+  /**
+   * @return the handle of the element, assigning a new one if it didn't have one already
+   */
+  static int handleOf(Element elt) {
+    int handle = findHandle(elt);
+    if (handle == -1) {
+      if (size >= pruneSize) {
+        size -= prune(elements);
+        pruneSize = Math.max(MIN_PRUNE_SIZE, size * 2);
+      }
+      // after wrapping around, skip any ids still in use
+      do {
+        handle = withToken(nextHandle++);
+      } while (contains(elements, handle));
+      size++;
+      put(elements, elt, handle);
+    }
+    return handle;
+  }
+
+  /**
+   * @return the handle of the element, or -1 if it hasn't been given one
+   */
+  static native int findHandle(Element elt) /*-{
+    return elt.__gwtdriver_handle == null ? -1 : elt.__gwtdriver_handle;
+  }-*/;
+
+  /**
+   * @return the number with the token of this page load in its upper bits
+   */
+  static int withToken(int counter) {
+    return TOKEN | (counter & COUNTER_MASK);
+  }
+
+  /**
+   * @return true if the number was made by {@link #withToken(int)} since this page loaded
+   */
+  static boolean isCurrent(int id) {
+    return (id & ~COUNTER_MASK) == TOKEN;
+  }
+
+  /**
+   * @return the element with the given handle, or null if there is none, it has been removed from
+   * the page, or the handle is from before the page was loaded
+   */
+  static Element get(int handle) {
+    return isCurrent(handle) ? get(elements, handle) : null;
+  }
+
+  private static native Element get(JavaScriptObject elements, int handle) /*-{
+    var elt = elements[handle];
+    return elt && $doc.documentElement.contains(elt) ? elt : null;
+  }-*/;
+
+  private static native boolean contains(JavaScriptObject elements, int handle) /*-{
+    return handle in elements;
+  }-*/;
+
+  private static native void put(JavaScriptObject elements, Element elt, int handle) /*-{
+    elt.__gwtdriver_handle = handle;
+    elements[handle] = elt;
+  }-*/;
+
+  /**
+   * Drops all elements which are no longer on the page.
+   *
+   * @return the number of elements dropped
+   */
+  private static native int prune(JavaScriptObject elements) /*-{
+    var dropped = 0;
+    for (var handle in elements) {
+      var elt = elements[handle];
+      if (!$doc.documentElement.contains(elt)) {
+        delete elt.__gwtdriver_handle;
+        delete elements[handle];
+        dropped++;
+      }
+    }
+    return dropped;
+  }-*/;
+}
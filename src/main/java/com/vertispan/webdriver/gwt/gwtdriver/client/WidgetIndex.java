@@ -0,0 +1,271 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver.client;
+
+import com.google.gwt.core.client.JavaScriptObject;
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.dom.client.Document;
+import com.google.gwt.user.client.DOM;
+import com.google.gwt.user.client.Element;
+import com.google.gwt.user.client.EventListener;
+import com.google.gwt.user.client.ui.HasWidgets;
+import com.google.gwt.user.client.ui.Widget;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Optional index of the widgets attached to the page, grouped by their class, so that searches for
+ * a widget type only need to check each class once rather than walk the whole widget tree.
+ * <p>
+ * Widgets set themselves as the event listener of their element while attached, so the index
+ * watches the document for added and removed elements, and looks for elements with a widget as
+ * their listener. Pending changes are applied before each search, so results are always current.
+ */
+final class WidgetIndex {
+  private static JavaScriptObject observer;
+
+  private static final Map<Class<?>, Set<Element>> elementsByClass =
+      new LinkedHashMap<Class<?>, Set<Element>>();
+  private static final Map<Element, Class<?>> classesByElement = new HashMap<Element, Class<?>>();
+
+  private WidgetIndex() {
+  }
+
+  /**
+   * Starts tracking attached widgets, indexing all those already on the page.
+   *
+   * @return false if the browser can't watch the document for added and removed elements
+   */
+  static boolean enable() {
+    if (observer == null) {
+      observer = observe();
+      if (observer == null) {
+        return false;
+      }
+      add(Document.get().getBody().<Element>cast());
+    }
+    return true;
+  }
+
+  static void disable() {
+    if (observer != null) {
+      disconnect(observer);
+      observer = null;
+      elementsByClass.clear();
+      classesByElement.clear();
+    }
+  }
+
+  static boolean isEnabled() {
+    return observer != null;
+  }
+
+  /**
+   * Finds the root elements of the indexed widgets of the given type below the root widget, in the
+   * same breadth-first order as a tree walk. Only widgets that a tree walk would find are returned:
+   * those reachable from the root through {@link HasWidgets}, so not the widgets inside of a
+   * Composite, or a DialogBox's caption.
+   * <p>
+   * Only the classes which are of the type are looked at, and the walk only goes into widgets which
+   * hold one of their instances, stopping once the limit is reached or every instance was found.
+   *
+   * @param root the widget to search within, which is itself never included
+   * @param type the type of widget to find
+   * @param offset the number of matches to skip
+   * @param limit the most elements to return, or a negative number for no limit
+   */
+  static JsArray<Element> find(Widget root, String type, int offset, int limit) {
+    applyPendingChanges(observer);
+    JsArray<Element> result = JsArray.createArray().cast();
+    Element rootElt = root.getElement();
+    Set<Widget> candidates = new HashSet<Widget>();
+    // the widgets holding a candidate, which are the only ones worth walking into
+    Set<Widget> holders = new HashSet<Widget>();
+    for (Map.Entry<Class<?>, Set<Element>> bucket : elementsByClass.entrySet()) {
+      // every widget in a bucket has the same class, so the type is only checked once
+      if (!isOfType(type, bucket.getKey(), bucket.getValue())) {
+        continue;
+      }
+      for (Element elt : bucket.getValue()) {
+        // a widget which was detached without removing its element no longer has a listener
+        EventListener listener = DOM.getEventListener(elt);
+        if (!(listener instanceof Widget) || elt == rootElt || !rootElt.isOrHasChild(elt)
+            || (listener.getClass() != bucket.getKey()
+            && !SeleniumExporter.isOfType(type, listener))) {
+          continue;
+        }
+        candidates.add((Widget) listener);
+        Widget holder = ((Widget) listener).getParent();
+        while (holder != null && holder != root && holders.add(holder)) {
+          holder = holder.getParent();
+        }
+      }
+    }
+
+    int remaining = candidates.size();
+    int skipped = 0;
+    Deque<Widget> nodesToVisit = new ArrayDeque<Widget>();
+    nodesToVisit.add(root);
+    while (!nodesToVisit.isEmpty() && remaining != 0) {
+      Widget curr = nodesToVisit.removeFirst();
+      if (!(curr instanceof HasWidgets)) {
+        continue;
+      }
+      for (Widget child : (HasWidgets) curr) {
+        if (candidates.contains(child)) {
+          remaining--;
+          if (skipped < offset) {
+            skipped++;
+          } else {
+            result.push(child.getElement());
+            if (result.length() == limit) {
+              return result;
+            }
+          }
+        }
+        if (holders.contains(child)) {
+          nodesToVisit.add(child);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Checks the type against the first widget in the bucket which is still of the bucket's class.
+   */
+  private static boolean isOfType(String type, Class<?> bucketClass, Set<Element> elements) {
+    for (Element elt : elements) {
+      EventListener listener = DOM.getEventListener(elt);
+      if (listener != null && listener.getClass() == bucketClass) {
+        return SeleniumExporter.isOfType(type, listener);
+      }
+    }
+    // none are left to check the class with, so check each widget instead
+    return true;
+  }
+
+  /**
+   * Indexes the element and all elements inside of it which are the root of an attached widget.
+   */
+  private static void add(Element elt) {
+    addElement(elt);
+    JsArray<Element> descendants = getDescendants(elt);
+    for (int i = 0; i < descendants.length(); i++) {
+      addElement(descendants.get(i));
+    }
+  }
+
+  private static void addElement(Element elt) {
+    EventListener listener = DOM.getEventListener(elt);
+    if (!(listener instanceof Widget) || classesByElement.containsKey(elt)) {
+      return;
+    }
+    Class<?> type = listener.getClass();
+    Set<Element> elements = elementsByClass.get(type);
+    if (elements == null) {
+      elements = new LinkedHashSet<Element>();
+      elementsByClass.put(type, elements);
+    }
+    elements.add(elt);
+    classesByElement.put(elt, type);
+  }
+
+  /**
+   * Removes the element and all elements inside of it from the index. Widgets have already cleared
+   * their listener by the time they are removed, so these can't be checked for a widget first.
+   */
+  private static void remove(Element elt) {
+    removeElement(elt);
+    JsArray<Element> descendants = getDescendants(elt);
+    for (int i = 0; i < descendants.length(); i++) {
+      removeElement(descendants.get(i));
+    }
+  }
+
+  private static void removeElement(Element elt) {
+    Class<?> type = classesByElement.remove(elt);
+    if (type == null) {
+      return;
+    }
+    Set<Element> elements = elementsByClass.get(type);
+    elements.remove(elt);
+    if (elements.isEmpty()) {
+      elementsByClass.remove(type);
+    }
+  }
+
+  private static native JavaScriptObject observe() /*-{
+    if (!$wnd.MutationObserver) {
+      return null;
+    }
+    var observer = new $wnd.MutationObserver(function(records) {
+      @com.vertispan.webdriver.gwt.gwtdriver.client.WidgetIndex::update(*)(records);
+    });
+    // make sure that added children are reported, not every implementation does
+    var probe = $doc.createElement('div');
+    observer.observe(probe, {childList: true});
+    probe.appendChild($doc.createElement('div'));
+    var supported = observer.takeRecords().length != 0;
+    observer.disconnect();
+    if (!supported) {
+      return null;
+    }
+    observer.observe($doc, {childList: true, subtree: true});
+    return observer;
+  }-*/;
+
+  private static native void disconnect(JavaScriptObject observer) /*-{
+    observer.disconnect();
+  }-*/;
+
+  private static native void applyPendingChanges(JavaScriptObject observer) /*-{
+    @com.vertispan.webdriver.gwt.gwtdriver.client.WidgetIndex::update(*)(observer.takeRecords());
+  }-*/;
+
+  /**
+   * Applies each mutation in the order they happened, so that a moved element ends up indexed.
+   */
+  private static native void update(JavaScriptObject records) /*-{
+    for (var i = 0; i < records.length; i++) {
+      var record = records[i];
+      for (var j = 0; j < record.removedNodes.length; j++) {
+        var removed = record.removedNodes[j];
+        if (removed.nodeType == 1) {
+          @com.vertispan.webdriver.gwt.gwtdriver.client.WidgetIndex::remove(*)(removed);
+        }
+      }
+      for (var j = 0; j < record.addedNodes.length; j++) {
+        // only index elements that are still attached, they may have been removed again since
+        var added = record.addedNodes[j];
+        if (added.nodeType == 1 && $doc.documentElement.contains(added)) {
+          @com.vertispan.webdriver.gwt.gwtdriver.client.WidgetIndex::add(*)(added);
+        }
+      }
+    }
+  }-*/;
+
+  private static native JsArray<Element> getDescendants(Element elt) /*-{
+    return elt.getElementsByTagName('*');
+  }-*/;
+}
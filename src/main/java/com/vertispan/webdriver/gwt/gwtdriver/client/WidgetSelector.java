@@ -0,0 +1,368 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver.client;
+
+import com.google.gwt.dom.client.Element;
+import com.google.gwt.user.client.ui.HasWidgets;
+import com.google.gwt.user.client.ui.Widget;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A query against the widget tree, written like a CSS selector, but where the element names are
+ * widget types:
+ * <pre>
+ * FlowPanel.panel2 &gt; Label:text("child1")
+ * DialogBox:top Button
+ * </pre>
+ * Each part of the selector is an optional widget type (a simple name like {@code Label}, or a
+ * qualified name like {@code com.google.gwt.user.client.ui.Label}, matching subclasses too, or
+ * {@code *}), followed by any number of style names like {@code .panel2}, and pseudo-classes:
+ * <ul>
+ *   <li>{@code :text("...")} - the text of the widget is exactly the given string</li>
+ *   <li>{@code :contains("...")} - the text of the widget contains the given string</li>
+ *   <li>{@code :visible} - the widget is visible and takes up space on the page</li>
+ *   <li>{@code :top} - of all the widgets matched so far, the one with the highest z-index</li>
+ * </ul>
+ * Parts are separated by whitespace to find descendant widgets, or {@code >} to find children.
+ * Descendants are those reachable through {@link HasWidgets}, and are returned breadth-first.
+ * <p>
+ * Selectors are parsed once, and the most recently used ones are kept for the next time the same
+ * selector is used.
+ */
+final class WidgetSelector {
+  private static final int CACHE_SIZE = 32;
+
+  private static final Map<String, WidgetSelector> cache =
+      new LinkedHashMap<String, WidgetSelector>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, WidgetSelector> eldest) {
+          return size() > CACHE_SIZE;
+        }
+      };
+
+  private final List<Part> parts = new ArrayList<>();
+
+  static WidgetSelector compile(String selector) {
+    WidgetSelector compiled = cache.get(selector);
+    if (compiled == null) {
+      compiled = new WidgetSelector(selector);
+      cache.put(selector, compiled);
+    }
+    return compiled;
+  }
+
+  private WidgetSelector(String selector) {
+    new Parser(selector).parse(parts);
+    if (parts.isEmpty()) {
+      throw new IllegalArgumentException("Empty widget selector");
+    }
+  }
+
+  /**
+   * Finds the widgets below the root which match the selector, in the order they are found.
+   *
+   * @param root the widget to search from
+   * @param includeRoot true if the root widget itself may match the first part of the selector
+   * @return the matching widgets
+   */
+  List<Widget> find(Widget root, boolean includeRoot) {
+    Set<Widget> candidates = new LinkedHashSet<>();
+    if (includeRoot) {
+      candidates.add(root);
+    }
+    addDescendants(Collections.singletonList(root), candidates);
+    List<Widget> current = parts.get(0).filter(candidates);
+    for (int i = 1; i < parts.size() && !current.isEmpty(); i++) {
+      Part part = parts.get(i);
+      Set<Widget> next = new LinkedHashSet<>();
+      if (part.child) {
+        for (Widget widget : current) {
+          if (widget instanceof HasWidgets) {
+            for (Widget child : (HasWidgets) widget) {
+              next.add(child);
+            }
+          }
+        }
+      } else {
+        addDescendants(current, next);
+      }
+      current = part.filter(next);
+    }
+    return current;
+  }
+
+  /**
+   * Walks breadth-first from all of the given widgets at once, so that when one of them is inside
+   * another, its descendants are still only visited a single time.
+   */
+  private static void addDescendants(Collection<Widget> roots, Set<Widget> result) {
+    Set<Widget> visited = new HashSet<>();
+    Deque<Widget> nodesToVisit = new ArrayDeque<>(roots);
+    while (!nodesToVisit.isEmpty()) {
+      Widget curr = nodesToVisit.removeFirst();
+      if (curr instanceof HasWidgets && visited.add(curr)) {
+        for (Widget child : (HasWidgets) curr) {
+          result.add(child);
+          nodesToVisit.add(child);
+        }
+      }
+    }
+  }
+
+  /**
+   * One part of the selector, such as {@code Label:text("child1")}.
+   */
+  private static final class Part {
+    private boolean child;
+    private String type;
+    private final List<String> styleNames = new ArrayList<>();
+    private final List<String[]> pseudoClasses = new ArrayList<>();
+
+    private List<Widget> filter(Collection<Widget> candidates) {
+      List<Widget> result = new ArrayList<>();
+      for (Widget candidate : candidates) {
+        if (matches(candidate)) {
+          result.add(candidate);
+        }
+      }
+      for (String[] pseudoClass : pseudoClasses) {
+        if (pseudoClass[0].equals("top") && result.size() > 1) {
+          Widget top = result.get(0);
+          for (Widget widget : result) {
+            if (SeleniumExporter.getZIndex(widget.getElement())
+                > SeleniumExporter.getZIndex(top.getElement())) {
+              top = widget;
+            }
+          }
+          result.clear();
+          result.add(top);
+        }
+      }
+      return result;
+    }
+
+    private boolean matches(Widget widget) {
+      if (type != null && !isOfType(widget)) {
+        return false;
+      }
+      Element elt = widget.getElement();
+      for (String styleName : styleNames) {
+        if (!hasClassName(elt, styleName)) {
+          return false;
+        }
+      }
+      for (String[] pseudoClass : pseudoClasses) {
+        String name = pseudoClass[0];
+        if (name.equals("text")) {
+          if (!elt.getInnerText().trim().equals(pseudoClass[1])) {
+            return false;
+          }
+        } else if (name.equals("contains")) {
+          if (!elt.getInnerText().contains(pseudoClass[1])) {
+            return false;
+          }
+        } else if (name.equals("visible")) {
+          if (!SeleniumExporter.isShown(widget)) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+
+    private boolean isOfType(Widget widget) {
+      if (type.indexOf('.') != -1) {
+        return SeleniumExporter.isOfType(type, widget);
+      }
+      // compare with the simple name of each type, nested types may also be written Outer$Inner
+      Class<?> currentType = widget.getClass();
+      while (currentType != null && currentType != Object.class) {
+        String name = currentType.getName();
+        String simpleName = name.substring(name.lastIndexOf('.') + 1);
+        if (type.equals(simpleName) || type.equals(simpleName.substring(
+            simpleName.lastIndexOf('$') + 1))) {
+          return true;
+        }
+        currentType = currentType.getSuperclass();
+      }
+      return false;
+    }
+  }
+
+  private static native boolean hasClassName(Element elt, String className) /*-{
+    return (' ' + elt.className + ' ').indexOf(' ' + className + ' ') != -1;
+  }-*/;
+
+  private static final class Parser {
+    private final String selector;
+    private int pos;
+
+    private Parser(String selector) {
+      this.selector = selector;
+    }
+
+    private void parse(List<Part> parts) {
+      boolean child = false;
+      while (true) {
+        boolean whitespace = skipWhitespace();
+        if (pos == selector.length()) {
+          if (child) {
+            throw error("Expected a widget after '>'");
+          }
+          return;
+        }
+        char c = selector.charAt(pos);
+        if (c == '>') {
+          if (child || parts.isEmpty()) {
+            throw error("Unexpected '>'");
+          }
+          child = true;
+          pos++;
+          continue;
+        }
+        if (!parts.isEmpty() && !whitespace && !child) {
+          throw error("Unexpected '" + c + "'");
+        }
+        Part part = parsePart();
+        part.child = child;
+        parts.add(part);
+        child = false;
+      }
+    }
+
+    private Part parsePart() {
+      Part part = new Part();
+      boolean universal = selector.charAt(pos) == '*';
+      if (universal) {
+        pos++;
+      } else if (isIdentifierChar(selector.charAt(pos))) {
+        // package names start in lowercase, the type starts in uppercase; any later dots are
+        // style names
+        String type = readIdentifier();
+        while (!Character.isUpperCase(type.charAt(type.lastIndexOf('.') + 1))
+            && pos + 1 < selector.length() && selector.charAt(pos) == '.'
+            && isIdentifierChar(selector.charAt(pos + 1))) {
+          pos++;
+          type += "." + readIdentifier();
+        }
+        part.type = type;
+      }
+      while (pos < selector.length()) {
+        char c = selector.charAt(pos);
+        if (c == '.') {
+          pos++;
+          part.styleNames.add(readIdentifier());
+        } else if (c == ':') {
+          pos++;
+          String name = readIdentifier();
+          String arg = null;
+          if (pos < selector.length() && selector.charAt(pos) == '(') {
+            pos++;
+            arg = readArgument();
+          }
+          boolean needsArgument = name.equals("text") || name.equals("contains");
+          if (!needsArgument && !name.equals("visible") && !name.equals("top")) {
+            throw error("Unsupported pseudo-class :" + name);
+          }
+          if (needsArgument != (arg != null)) {
+            throw error(needsArgument ? "Expected an argument for :" + name
+                : "Unexpected argument for :" + name);
+          }
+          part.pseudoClasses.add(new String[]{name, arg});
+        } else {
+          break;
+        }
+      }
+      if (!universal && part.type == null && part.styleNames.isEmpty()
+          && part.pseudoClasses.isEmpty()) {
+        throw error("Expected a widget");
+      }
+      return part;
+    }
+
+    private String readIdentifier() {
+      int start = pos;
+      while (pos < selector.length() && isIdentifierChar(selector.charAt(pos))) {
+        pos++;
+      }
+      if (start == pos) {
+        throw error("Expected a name");
+      }
+      return selector.substring(start, pos);
+    }
+
+    /**
+     * Reads a quoted string, or anything up to the closing parenthesis, and the parenthesis.
+     */
+    private String readArgument() {
+      skipWhitespace();
+      StringBuilder arg = new StringBuilder();
+      if (pos < selector.length()
+          && (selector.charAt(pos) == '"' || selector.charAt(pos) == '\'')) {
+        char quote = selector.charAt(pos++);
+        while (pos < selector.length() && selector.charAt(pos) != quote) {
+          char c = selector.charAt(pos++);
+          if (c == '\\' && pos < selector.length()) {
+            c = selector.charAt(pos++);
+          }
+          arg.append(c);
+        }
+        if (pos == selector.length()) {
+          throw error("Unterminated string");
+        }
+        pos++;
+        skipWhitespace();
+      } else {
+        while (pos < selector.length() && selector.charAt(pos) != ')') {
+          arg.append(selector.charAt(pos++));
+        }
+      }
+      if (pos == selector.length() || selector.charAt(pos) != ')') {
+        throw error("Expected ')'");
+      }
+      pos++;
+      return arg.toString();
+    }
+
+    private boolean skipWhitespace() {
+      int start = pos;
+      while (pos < selector.length() && Character.isWhitespace(selector.charAt(pos))) {
+        pos++;
+      }
+      return pos != start;
+    }
+
+    private static boolean isIdentifierChar(char c) {
+      return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '-';
+    }
+
+    private IllegalArgumentException error(String message) {
+      return new IllegalArgumentException(
+          message + " at position " + pos + " in widget selector '" + selector + "'");
+    }
+  }
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver.client;
+
+import com.google.gwt.core.client.JsArray;
+import com.google.gwt.core.client.JsArrayBoolean;
+import com.google.gwt.core.client.JsArrayInteger;
+import com.google.gwt.core.client.JsArrayMixed;
+import com.google.gwt.core.client.JsArrayString;
+import com.google.gwt.user.client.DOM;
+import com.google.gwt.user.client.Element;
+import com.google.gwt.user.client.EventListener;
+import com.google.gwt.user.client.ui.HasWidgets;
+import com.google.gwt.user.client.ui.Widget;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The widgets below a root widget, captured at some point in time. Each capture sent to the
+ * WebDriver client is kept as a numbered version for a while, so that later the client can ask
+ * only for what has changed since then: widgets added or removed, widgets whose children changed
+ * (which covers widgets moved to another parent), and widgets whose details changed.
+ */
+final class WidgetTree {
+  private static final int VERSIONS_KEPT = 8;
+  private static final Map<Integer, WidgetTree> versions = new LinkedHashMap<>();
+  private static int lastVersion = 0;
+
+  private final boolean details;
+  private final int rootHandle;
+  /**
+   * Each widget by its handle, in depth-first order.
+   */
+  private final Map<Integer, Entry> entries = new LinkedHashMap<>();
+
+  /**
+   * What is kept of each widget. Remembered versions only hold the class of each widget, so that
+   * removed widgets can be collected; the element is only kept until the tree is remembered.
+   */
+  private static final class Entry {
+    private Class<?> type;
+    private Element element;
+    private int parentIndex;
+    private final List<Integer> children = new ArrayList<>();
+    private String text;
+    private boolean visible;
+  }
+
+  private WidgetTree(Widget root, boolean details) {
+    this.details = details;
+    this.rootHandle = WidgetHandles.handleOf(root.getElement().<Element>cast());
+    // depth-first, so that each widget comes after its parent and before its next sibling
+    Deque<Widget> nodesToVisit = new ArrayDeque<>();
+    Deque<Integer> parentIndexes = new ArrayDeque<>();
+    nodesToVisit.push(root);
+    parentIndexes.push(-1);
+    while (!nodesToVisit.isEmpty()) {
+      Widget curr = nodesToVisit.pop();
+      Element elt = curr.getElement().cast();
+      Entry entry = new Entry();
+      entry.type = curr.getClass();
+      entry.element = elt;
+      entry.parentIndex = parentIndexes.pop();
+      if (details) {
+        entry.text = elt.getInnerText();
+        entry.visible = SeleniumExporter.isShown(curr);
+      }
+      int index = entries.size();
+      entries.put(WidgetHandles.handleOf(elt), entry);
+      if (curr instanceof HasWidgets) {
+        List<Widget> children = new ArrayList<>();
+        for (Widget child : (HasWidgets) curr) {
+          children.add(child);
+          entry.children.add(WidgetHandles.handleOf(child.getElement().<Element>cast()));
+        }
+        for (int i = children.size() - 1; i >= 0; i--) {
+          nodesToVisit.push(children.get(i));
+          parentIndexes.push(index);
+        }
+      }
+    }
+  }
+
+  /**
+   * Describes every widget below the root, as a list of columns, and remembers it as a new
+   * version.
+   *
+   * @see com.vertispan.webdriver.gwt.gwtdriver.invoke.ExportedMethods#getWidgetTree
+   */
+  static JsArrayMixed describe(Widget root, boolean details, boolean lazyElements) {
+    JsArray<JsArrayString> types = JsArray.createArray().cast();
+    JsArrayInteger typeIds = JsArray.createArray().cast();
+    JsArrayInteger parents = JsArray.createArray().cast();
+    JsArrayInteger handles = JsArray.createArray().cast();
+    JsArray<Element> elements =
+        lazyElements ? null : JsArray.createArray().<JsArray<Element>>cast();
+    JsArrayString texts = details ? JsArray.createArray().<JsArrayString>cast() : null;
+    JsArrayBoolean visible = details ? JsArray.createArray().<JsArrayBoolean>cast() : null;
+    int version = -1;
+    if (root != null) {
+      WidgetTree tree = new WidgetTree(root, details);
+      Map<Class<?>, Integer> typeIdsByClass = new HashMap<>();
+      for (Map.Entry<Integer, Entry> item : tree.entries.entrySet()) {
+        Entry entry = item.getValue();
+        typeIds.push(getTypeId(entry.type, typeIdsByClass, types));
+        parents.push(entry.parentIndex);
+        handles.push(item.getKey());
+        if (elements != null) {
+          elements.push(entry.element);
+        }
+        if (details) {
+          texts.push(entry.text);
+          visible.push(entry.visible);
+        }
+      }
+      version = remember(tree);
+    }
+    JsArrayMixed result = JsArray.createArray().cast();
+    result.push(types);
+    result.push(typeIds);
+    result.push(parents);
+    result.push(handles);
+    result.push(elements);
+    result.push(texts);
+    result.push(visible);
+    result.push(version);
+    return result;
+  }
+
+  /**
+   * Describes what has changed below the same root since the given version, and remembers the
+   * current state as a new version.
+   *
+   * @return the changes, or null if that version is no longer known or its root was removed
+   * @see com.vertispan.webdriver.gwt.gwtdriver.invoke.ExportedMethods#getWidgetTreeChanges
+   */
+  static JsArrayMixed describeChanges(int version, boolean lazyElements) {
+    WidgetTree previous = versions.get(version);
+    Element rootElement = previous == null ? null : WidgetHandles.get(previous.rootHandle);
+    EventListener root = rootElement == null ? null : DOM.getEventListener(rootElement);
+    if (!(root instanceof Widget) || !((Widget) root).isAttached()) {
+      return null;
+    }
+    WidgetTree current = new WidgetTree((Widget) root, previous.details);
+
+    JsArray<JsArrayString> types = JsArray.createArray().cast();
+    Map<Class<?>, Integer> typeIdsByClass = new HashMap<>();
+    JsArrayInteger added = JsArray.createArray().cast();
+    JsArrayInteger addedTypeIds = JsArray.createArray().cast();
+    JsArray<Element> addedElements =
+        lazyElements ? null : JsArray.createArray().<JsArray<Element>>cast();
+    JsArray<JsArrayMixed> childrenChanged = JsArray.createArray().cast();
+    JsArray<JsArrayMixed> detailsChanged = JsArray.createArray().cast();
+    for (Map.Entry<Integer, Entry> item : current.entries.entrySet()) {
+      int handle = item.getKey();
+      Entry entry = item.getValue();
+      Entry before = previous.entries.get(handle);
+      if (before == null) {
+        added.push(handle);
+        addedTypeIds.push(getTypeId(entry.type, typeIdsByClass, types));
+        if (addedElements != null) {
+          addedElements.push(entry.element);
+        }
+      }
+      if (before == null ? !entry.children.isEmpty() : !before.children.equals(entry.children)) {
+        JsArrayMixed row = JsArray.createArray().cast();
+        row.push(handle);
+        for (int child : entry.children) {
+          row.push(child);
+        }
+        childrenChanged.push(row);
+      }
+      if (current.details && (before == null || !before.text.equals(entry.text)
+          || before.visible != entry.visible)) {
+        JsArrayMixed row = JsArray.createArray().cast();
+        row.push(handle);
+        row.push(entry.text);
+        row.push(entry.visible);
+        detailsChanged.push(row);
+      }
+    }
+    JsArrayInteger removed = JsArray.createArray().cast();
+    for (int handle : previous.entries.keySet()) {
+      if (!current.entries.containsKey(handle)) {
+        removed.push(handle);
+      }
+    }
+
+    JsArrayMixed result = JsArray.createArray().cast();
+    result.push(remember(current));
+    result.push(types);
+    result.push(added);
+    result.push(addedTypeIds);
+    result.push(addedElements);
+    result.push(childrenChanged);
+    result.push(removed);
+    result.push(current.details ? detailsChanged : null);
+    return result;
+  }
+
+  private static int remember(WidgetTree tree) {
+    for (Entry entry : tree.entries.values()) {
+      entry.element = null;
+    }
+    // versions carry the page load token like handles, so ones from before a reload aren't found
+    int version = WidgetHandles.withToken(++lastVersion);
+    versions.put(version, tree);
+    if (versions.size() > VERSIONS_KEPT) {
+      Iterator<Integer> oldest = versions.keySet().iterator();
+      oldest.next();
+      oldest.remove();
+    }
+    return version;
+  }
+
+  /**
+   * Finds the index of the type in the list, first adding the names of it and each superclass.
+   */
+  private static int getTypeId(Class<?> type, Map<Class<?>, Integer> typeIds,
+      JsArray<JsArrayString> types) {
+    Integer id = typeIds.get(type);
+    if (id == null) {
+      JsArrayString names = JsArray.createArray().cast();
+      for (Class<?> current = type; current != null && current != Object.class;
+          current = current.getSuperclass()) {
+        names.push(current.getName());
+      }
+      id = types.length();
+      types.push(names);
+      typeIds.put(type, id);
+    }
+    return id;
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver.invoke;
+
+import com.vertispan.webdriver.gwt.gwtdriver.ModuleUtilities;
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.ClientMethodsFactory.MethodInfo;
+
+import org.openqa.selenium.WebDriver;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Queues up calls made on ClientMethods instances, and sends them to the browser in a single round
+ * trip when {@link #execute()} is invoked.
+ * <p>
+ * Instances created by {@link #create(Class)} don't talk to the browser - each method call is
+ * recorded and returns {@code null} (or {@code false}/{@code 0} for primitives). The actual
+ * results are returned by {@code execute()}, in the same order that the calls were made:
+ * <pre>
+ * ClientMethodsBatch batch = ClientMethodsFactory.createBatch(driver);
+ * ExportedMethods methods = batch.create(ExportedMethods.class);
+ * methods.isWidget(first);
+ * methods.getChildren(second);
+ * List&lt;Object&gt; results = batch.execute();
+ * </pre>
+ * Since nothing is returned until the batch runs, the calls in a batch can't depend on each other.
+ * The batch is invoked synchronously only if every method in it, or its type, is annotated with
+ * {@link ClientMethods.Sync}.
+ */
+public class ClientMethodsBatch {
+  private final WebDriver driver;
+  private final String module;
+
+  private final List<MethodInfo> methods = new ArrayList<>();
+  private final List<List<Object>> calls = new ArrayList<>();
+
+  ClientMethodsBatch(WebDriver driver, String module) {
+    this.driver = driver;
+    this.module = module;
+  }
+
+  /**
+   * Creates an instance of the ClientMethods type which adds each call made on it to this batch.
+   *
+   * @param type the ClientMethods type to build
+   * @param <T> the type
+   * @return an instance of the ClientMethods interface given, which queues calls in this batch
+   */
+  public <T extends ClientMethods> T create(Class<T> type) {
+    @SuppressWarnings("unchecked")
+    T proxy = (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+        (instance, method, args) -> {
+          MethodInfo info = ClientMethodsFactory.getMethodInfo(method);
+          List<Object> call = new ArrayList<>();
+          call.add(info.key);
+          if (args != null) {
+            call.addAll(Arrays.asList(args));
+          }
+          methods.add(info);
+          calls.add(call);
+          return defaultValue(method.getReturnType());
+        });
+    return proxy;
+  }
+
+  /**
+   * @return the number of calls currently queued in this batch
+   */
+  public int size() {
+    return calls.size();
+  }
+
+  /**
+   * Sends all queued calls to the browser at once, and empties the batch so it can be reused.
+   *
+   * @return the result of each call, in the order that the calls were made
+   * @throws RuntimeException if any call in the batch failed
+   */
+  public List<Object> execute() {
+    if (calls.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<Object> results;
+    try {
+      if (methods.stream().anyMatch(info -> info.async)) {
+        results = ModuleUtilities.executeBatch(module, driver, calls);
+      } else {
+        results = ModuleUtilities.executeSyncBatch(module, driver, calls);
+      }
+      for (int i = 0; i < results.size(); i++) {
+        results.set(i, methods.get(i).returnConverter.apply(results.get(i)));
+      }
+    } finally {
+      methods.clear();
+      calls.clear();
+    }
+    return results;
+  }
+
+  private static Object defaultValue(Class<?> type) {
+    if (type == boolean.class) {
+      return false;
+    } else if (type == int.class) {
+      return 0;
+    } else if (type == long.class) {
+      return 0L;
+    } else if (type == double.class) {
+      return 0.0;
+    }
+    return null;
+  }
+}
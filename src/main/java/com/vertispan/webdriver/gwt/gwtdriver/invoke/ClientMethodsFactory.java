@@ -24,19 +24,46 @@ import net.sourceforge.htmlunit.corejs.javascript.ConsString;
 import org.openqa.selenium.JavascriptExecutor;
 import org.openqa.selenium.WebDriver;
 
+import java.lang.ref.SoftReference;
+import java.lang.reflect.Array;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 
 /**
- * Allows simple invocation of exported methods from GWT. Must follow the same rules as {@link
- * JavascriptExecutor#executeAsyncScript(String, Object...)} in both the Java/Test and
- * Java/Gwt/Client code in terms of arguments passed, expect for primitives, which must be a string
- * (unless returning them from jsni, in which case it should be treated as a long/Long as per
- * executeAsyncScript) from the client, and will be returned as a int/double/ boolean into code.
+ * Allows simple invocation of exported methods from GWT. Methods are invoked asynchronously unless
+ * they or their type are annotated with {@link ClientMethods.Sync}. Must follow the same rules as
+ * {@link JavascriptExecutor#executeAsyncScript(String, Object...)} in both the Java/Test and
+ * Java/Gwt/Client code in terms of arguments passed. Return values may also be int, long, double
+ * or boolean (or their boxed types), arrays of those or of strings, or lists of any of these,
+ * including nested lists; they are sent as plain JSON values and converted to the declared type.
  */
 public class ClientMethodsFactory {
+  private static final Object[] NO_ARGS = new Object[0];
+
+  /**
+   * Proxies already created for each driver. Held softly so that the proxies (and through them, the
+   * driver) don't keep the driver's entry alive forever.
+   */
+  private static final Map<WebDriver, SoftReference<DriverProxies>> PROXIES =
+      Collections.synchronizedMap(new WeakHashMap<>());
+
+  private static final Function<Object, Object> IDENTITY = Function.identity();
+
+  private static final Map<Method, MethodInfo> METHODS = new ConcurrentHashMap<>();
+
   private static final class InvocationHandlerImplementation implements
       InvocationHandler {
     private final WebDriver driver;
@@ -49,29 +76,130 @@ public class ClientMethodsFactory {
 
     @Override
     public Object invoke(Object instance, Method method, Object[] args) throws Throwable {
+      MethodInfo info = getMethodInfo(method);
+      if (args == null) {
+        args = NO_ARGS;
+      }
       Object ret;
-      String key = method.getDeclaringClass().getName() + "::" + method.getName();
-      if (module != null) {
-        ret = ModuleUtilities.executeExportedFunction(module, key, driver, args);
+      if (info.async) {
+        ret = ModuleUtilities.executeExportedFunction(module, info.key, driver, args);
       } else {
-        ret = ModuleUtilities.executeExportedFunction(key, driver, args);
+        ret = ModuleUtilities.executeSyncExportedFunction(module, info.key, driver, args);
+      }
+      return info.returnConverter.apply(ret);
+    }
+  }
+
+  /**
+   * Details about each method that only need to be worked out once.
+   */
+  static final class MethodInfo {
+    final String key;
+    final boolean async;
+    final Function<Object, Object> returnConverter;
+
+    private MethodInfo(Method method) {
+      key = method.getDeclaringClass().getName() + "::" + method.getName();
+      async = !method.isAnnotationPresent(ClientMethods.Sync.class)
+          && !method.getDeclaringClass().isAnnotationPresent(ClientMethods.Sync.class);
+      returnConverter = createReturnConverter(method.getGenericReturnType());
+    }
+  }
+
+  /**
+   * The proxies created so far for a single driver, on the default module and on named modules.
+   */
+  private static final class DriverProxies {
+    private final Map<Class<?>, Object> defaultModule = new ConcurrentHashMap<>();
+    private final Map<String, Map<Class<?>, Object>> namedModules = new ConcurrentHashMap<>();
+
+    private Map<Class<?>, Object> forModule(String moduleName) {
+      if (moduleName == null) {
+        return defaultModule;
       }
-      if (method.getReturnType().isPrimitive() && method.getReturnType() != long.class) {
-        // any primitive coming back from gwt will be a string, parse it
-        if (method.getReturnType() == int.class) {
-          return Integer.parseInt(ret.toString());
-        } else if (method.getReturnType() == double.class) {
-          return Double.parseDouble(ret.toString());
-        } else if (method.getReturnType() == boolean.class) {
-          return Boolean.parseBoolean(ret.toString());
+      return namedModules.computeIfAbsent(moduleName, ignore -> new ConcurrentHashMap<>());
+    }
+  }
+
+  static MethodInfo getMethodInfo(Method method) {
+    return METHODS.computeIfAbsent(method, MethodInfo::new);
+  }
+
+  /**
+   * Builds a function to turn the value sent back by WebDriver into the declared return type.
+   * Numbers arrive as Long or Double, and lists as List, so these are converted to the specific
+   * number, array or list item types that the method declares.
+   */
+  private static Function<Object, Object> createReturnConverter(Type returnType) {
+    if (returnType == int.class || returnType == Integer.class) {
+      return ret -> ret == null ? null : toNumber(ret).intValue();
+    } else if (returnType == long.class || returnType == Long.class) {
+      return ret -> ret == null ? null : toNumber(ret).longValue();
+    } else if (returnType == double.class || returnType == Double.class) {
+      return ret -> ret == null ? null : toNumber(ret).doubleValue();
+    } else if (returnType == boolean.class || returnType == Boolean.class) {
+      // modules built before typed return values send primitives as strings
+      return ret -> ret == null || ret instanceof Boolean ? ret : Boolean.parseBoolean(
+          ret.toString());
+    } else if (returnType == String.class) {
+      return ret -> ret == null ? null : ret.toString();
+    } else if (returnType instanceof Class && ((Class<?>) returnType).isArray()) {
+      Class<?> componentType = ((Class<?>) returnType).getComponentType();
+      Function<Object, Object> itemConverter = createReturnConverter(componentType);
+      return ret -> {
+        if (ret == null) {
+          return null;
+        }
+        List<?> list = (List<?>) ret;
+        Object array = Array.newInstance(componentType, list.size());
+        for (int i = 0; i < list.size(); i++) {
+          Array.set(array, i, itemConverter.apply(list.get(i)));
         }
+        return array;
+      };
+    } else if (returnType instanceof ParameterizedType
+        && Collection.class.isAssignableFrom((Class<?>) ((ParameterizedType) returnType)
+        .getRawType())) {
+      Type itemType = ((ParameterizedType) returnType).getActualTypeArguments()[0];
+      if (itemType instanceof WildcardType) {
+        itemType = ((WildcardType) itemType).getUpperBounds()[0];
       }
+      Function<Object, Object> itemConverter = createReturnConverter(itemType);
+      if (itemConverter == IDENTITY) {
+        // items such as WebElements come back ready to use, no need to copy the list
+        return IDENTITY;
+      }
+      return ret -> {
+        if (ret == null) {
+          return null;
+        }
+        List<?> list = (List<?>) ret;
+        List<Object> items = new ArrayList<>(list.size());
+        for (Object item : list) {
+          items.add(itemConverter.apply(item));
+        }
+        return items;
+      };
+    } else if (returnType instanceof Class
+        && !((Class<?>) returnType).isAssignableFrom(String.class)) {
+      // can't be holding a string, so there is nothing to normalize
+      return IDENTITY;
+    }
+    return ret -> {
       //normalize string, apparently htmlunit gives us junk values from time to time
       if (ret instanceof ConsString) {
-        ret = ret.toString();
+        return ret.toString();
       }
       return ret;
+    };
+  }
+
+  private static Number toNumber(Object ret) {
+    if (ret instanceof Number) {
+      return (Number) ret;
     }
+    // modules built before typed return values send primitives as strings
+    return Double.valueOf(ret.toString());
   }
 
   /**
@@ -88,7 +216,8 @@ public class ClientMethodsFactory {
   }
 
   /**
-   * Creates an instance of the ClientMethods type on the given module name.
+   * Creates an instance of the ClientMethods type on the given module name. Instances are reused
+   * for the same type, driver and module name.
    *
    * @param type the ClientMethods type to build
    * @param driver a webdriver that should be used to communicate with the browser
@@ -100,9 +229,47 @@ public class ClientMethodsFactory {
   public static <T extends ClientMethods> T create(Class<T> type, WebDriver driver,
       String moduleName) {
     assert driver instanceof JavascriptExecutor;
-    @SuppressWarnings("unchecked")
-    T proxy = (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
-        new InvocationHandlerImplementation(driver, moduleName));
-    return proxy;
+    Object proxy = getDriverProxies(driver).forModule(moduleName).computeIfAbsent(type,
+        ignore -> Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+            new InvocationHandlerImplementation(driver, moduleName)));
+    return type.cast(proxy);
+  }
+
+  private static DriverProxies getDriverProxies(WebDriver driver) {
+    synchronized (PROXIES) {
+      SoftReference<DriverProxies> ref = PROXIES.get(driver);
+      DriverProxies proxies = ref == null ? null : ref.get();
+      if (proxies == null) {
+        proxies = new DriverProxies();
+        PROXIES.put(driver, new SoftReference<>(proxies));
+      }
+      return proxies;
+    }
+  }
+
+  /**
+   * Creates a batch to queue up calls to ClientMethods types on the first available module, to be
+   * sent to the browser together.
+   *
+   * @param driver a webdriver that should be used to communicate with the browser
+   * @return a new, empty batch
+   * @see ClientMethodsBatch
+   */
+  public static ClientMethodsBatch createBatch(WebDriver driver) {
+    return createBatch(driver, null);
+  }
+
+  /**
+   * Creates a batch to queue up calls to ClientMethods types on the given module name, to be sent
+   * to the browser together.
+   *
+   * @param driver a webdriver that should be used to communicate with the browser
+   * @param moduleName the name of the GWT module to connect with
+   * @return a new, empty batch
+   * @see ClientMethodsBatch
+   */
+  public static ClientMethodsBatch createBatch(WebDriver driver, String moduleName) {
+    assert driver instanceof JavascriptExecutor;
+    return new ClientMethodsBatch(driver, moduleName);
   }
 }
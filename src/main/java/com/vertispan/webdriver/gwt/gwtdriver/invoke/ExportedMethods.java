@@ -21,11 +21,22 @@ import org.openqa.selenium.WebElement;
 
 import java.util.List;
 
+/**
+ * The methods exported by every module. None of them depend on pending work in the application, so
+ * they are all invoked synchronously.
+ */
+@ClientMethods.Sync
 public interface ExportedMethods extends ClientMethods {
   boolean isWidget(WebElement elt);
 
   boolean instanceofwidget(WebElement elt, String type);
 
+  /**
+   * Returns the elements which are the root element of a widget of the given type, in the same
+   * order, with any duplicates removed.
+   */
+  List<WebElement> filterWidgets(List<WebElement> elts, String className);
+
   String getContainingWidgetClass(WebElement elt);
 
   WebElement getContainingWidgetElt(WebElement elt);
@@ -43,6 +54,13 @@ public interface ExportedMethods extends ClientMethods {
    */
   List<WebElement> getChildren(WebElement context);
 
+  /**
+   * Returns the children of the Widget associated with context which are of the given type.
+   *
+   * If the widget is null or does not implement HasWidgets, an empty list will be returned.
+   */
+  List<WebElement> getChildrenOfType(WebElement context, String className);
+
   /**
    * Finds all descendant Widget elements below the context element matching className type.
    * <p>
@@ -57,6 +75,31 @@ public interface ExportedMethods extends ClientMethods {
    */
   List<WebElement> findDescendantWidgetElementsOfType(WebElement context, String className);
 
+  /**
+   * Finds the descendant Widget elements below the context element matching className type, in the
+   * same order as {@link #findDescendantWidgetElementsOfType(WebElement, String)}, but skipping the
+   * first {@code offset} matches and returning at most {@code limit} elements. The search stops as
+   * soon as enough matches have been found, so this can be used to page through large widget trees.
+   *
+   * @param offset the number of matches to skip
+   * @param limit the most elements to return, or a negative number for no limit
+   */
+  List<WebElement> findDescendantWidgetElementsOfTypeInRange(WebElement context, String className,
+      int offset, int limit);
+
+  /**
+   * Finds the descendant Widget elements below the context element matching className type, like
+   * {@link #findDescendantWidgetElementsOfTypeInRange(WebElement, String, int, int)}, but without
+   * visiting the parts of the widget tree excluded by the options, and only returning widgets which
+   * pass the visibility checks in the options.
+   *
+   * @param options the limits on the search, from {@link TraversalOptions#asList()}
+   * @param offset the number of matches to skip
+   * @param limit the most elements to return, or a negative number for no limit
+   */
+  List<WebElement> findDescendantWidgetElementsOfTypeWithOptions(WebElement context,
+      String className, List<Object> options, int offset, int limit);
+
   /**
    * Finds all descendant Widget elements below the context element.
    * <p>
@@ -73,7 +116,244 @@ public interface ExportedMethods extends ClientMethods {
 
   /**
    * Finds the first descendant Widget element below the context element matching className type;
-   * breadth-first traversal.
+   * breadth-first traversal, which stops as soon as a match is found.
    */
   WebElement findFirstDescendantWidgetElementsOfType(WebElement context, String className);
+
+  /**
+   * Describes the whole widget tree below the containing widget of the context, for {@link
+   * WidgetTreeSnapshot}. Widgets are listed in depth-first order, each one after its parent, and
+   * the result holds one list per property of the widgets, so that large trees stay compact:
+   * <ol>
+   *   <li>the types seen, each as the class names of the type and its superclasses</li>
+   *   <li>the index of the type of each widget</li>
+   *   <li>the index of the parent of each widget, or -1 for the first</li>
+   *   <li>the handle of each widget, see {@link #getElementsForHandles(List)}</li>
+   *   <li>the root element of each widget, or null if elements are to be fetched lazily</li>
+   *   <li>the text of each widget, or null if details weren't requested</li>
+   *   <li>whether each widget is visible, or null if details weren't requested</li>
+   *   <li>the version of the tree, to pass to {@link #getWidgetTreeChanges(int, boolean)}</li>
+   * </ol>
+   *
+   * @param contexts an element inside of the widget to start from, or an empty list to describe
+   * every widget on the page
+   * @param details true to include the text and visibility of each widget
+   * @param lazyElements true to leave out the elements, to be fetched later by their handles
+   */
+  List<Object> getWidgetTree(List<WebElement> contexts, boolean details, boolean lazyElements);
+
+  /**
+   * Describes what has changed in a widget tree since it was described by {@link #getWidgetTree}
+   * or an earlier call to this method, by the handles of the widgets:
+   * <ol>
+   *   <li>the new version of the tree</li>
+   *   <li>the types of the added widgets, as in {@code getWidgetTree}</li>
+   *   <li>the handles of the added widgets</li>
+   *   <li>the index of the type of each added widget</li>
+   *   <li>the root element of each added widget, or null if elements are to be fetched lazily</li>
+   *   <li>for each widget whose children changed, its handle followed by the handles of all of
+   *   its children</li>
+   *   <li>the handles of the removed widgets</li>
+   *   <li>for each widget whose text or visibility changed, its handle, text and visibility, or
+   *   null if the tree was described without details</li>
+   * </ol>
+   * Only the last few versions are kept in the browser.
+   *
+   * @param version the version to compare the widgets on the page to
+   * @param lazyElements true to leave out the elements of added widgets
+   * @return the changes, or null if the version is no longer known or its root widget was removed
+   */
+  List<Object> getWidgetTreeChanges(int version, boolean lazyElements);
+
+  /**
+   * Reads properties of many widgets at once, as a table with one row for each element, and one
+   * column for each property. The properties are:
+   * <ul>
+   *   <li>"type" - the class name of the widget</li>
+   *   <li>"text" - the text of a HasText widget, or the text inside of any other widget</li>
+   *   <li>"value" - the text in a ValueBoxBase, the selected value of a ListBox, or the value of
+   *   any other HasValue widget as a string</li>
+   *   <li>"enabled" - whether a HasEnabled widget is enabled</li>
+   *   <li>"styleNames" - the style names of the widget, separated by spaces</li>
+   *   <li>"visible" - whether the widget is visible and takes up space on the page</li>
+   *   <li>"attribute:name" - the named attribute of the widget's root element</li>
+   * </ul>
+   * Values are null when a widget doesn't have that property, and each element is read from its
+   * nearest containing widget.
+   *
+   * @param elements the elements of the widgets to read
+   * @param properties the names of the properties to read
+   * @return a row of values for each element, in the same order as the properties
+   * @see com.vertispan.webdriver.gwt.gwtdriver.models.WidgetProperties
+   */
+  List<List<Object>> getWidgetProperties(List<WebElement> elements, List<String> properties);
+
+  /**
+   * Runs a chain of locators like {@link #findElementsByChain}, and reads properties of the
+   * widgets found like {@link #getWidgetProperties}, all in a single call.
+   *
+   * @param contexts the elements to search from, or an empty list to search the whole document
+   * @param steps the locators to run, in order
+   * @param properties the names of the properties to read
+   * @return a row for each element found by the last step, starting with the element, and then
+   * the values in the same order as the properties
+   * @see com.vertispan.webdriver.gwt.gwtdriver.models.WidgetContainer#readProperties
+   */
+  List<List<Object>> findWidgetProperties(List<WebElement> contexts, List<List<Object>> steps,
+      List<String> properties);
+
+  /**
+   * Reads the state of many widgets at once from the widget itself rather than its DOM, one row
+   * for each element, each with:
+   * <ol>
+   *   <li>the class name of the widget</li>
+   *   <li>the value of a HasValue widget, or the selected value of a ListBox - strings and
+   *   booleans as they are, numbers and dates (in milliseconds) as numbers, and anything else as a
+   *   string</li>
+   *   <li>the text of a HasText widget</li>
+   *   <li>whether a HasEnabled widget is enabled</li>
+   *   <li>the indexes of the selected items of a ListBox</li>
+   * </ol>
+   * Each item is null if the widget doesn't support it, and each element is read from its nearest
+   * containing widget.
+   *
+   * @param elements the elements of the widgets to read
+   * @return a row for each element, or null if the element isn't inside of a widget
+   * @see com.vertispan.webdriver.gwt.gwtdriver.models.WidgetState
+   */
+  List<List<Object>> getWidgetState(List<WebElement> elements);
+
+  /**
+   * Finds the root elements of widgets from their handles, as returned by {@link #getWidgetTree}.
+   *
+   * @param handles the handles of the widgets
+   * @return the element for each handle, or null if a handle is unknown, its widget was removed, or
+   * it is from before the page was reloaded
+   */
+  List<WebElement> getElementsForHandles(List<Integer> handles);
+
+  /**
+   * Finds the handles of the given widget root elements.
+   *
+   * @param elements the root elements of widgets
+   * @return the handle of each element, or -1 if the element hasn't been given a handle
+   */
+  List<Integer> getHandlesForElements(List<WebElement> elements);
+
+  /**
+   * Finds the handle of the nearest widget containing the element, giving it one if needed.
+   *
+   * @return the handle, or -1 if the element isn't inside of a widget
+   * @see WidgetHandle
+   */
+  int getWidgetHandle(WebElement element);
+
+  /**
+   * Like {@link #findDescendantWidgetElementsOfTypeInRange}, but from and to widget handles.
+   *
+   * @param context the handle of the widget to search from, or -1 to search the whole page
+   * @return the handles found, or null if the context handle is no longer on the page
+   * @see WidgetHandle
+   */
+  List<Integer> findWidgetHandles(int context, String type, int offset, int limit);
+
+  /**
+   * Like {@link #getChildrenOfType}, but from and to widget handles.
+   *
+   * @return the handles found, or null if the handle is no longer on the page
+   * @see WidgetHandle
+   */
+  List<Integer> getChildWidgetHandles(int handle, String type);
+
+  /**
+   * Like {@link #getContainingWidgetEltOfType}, but from and to widget handles.
+   *
+   * @return the handle of the widget, -1 if there is none, or -2 if the handle is no longer on the
+   * page
+   * @see WidgetHandle
+   */
+  int getNearestWidgetHandle(int handle, String type);
+
+  /**
+   * Starts keeping an index of the widgets attached to the page, updated as widgets are attached
+   * and detached, so that searches for descendant widgets of a type don't need to walk the widget
+   * tree. While the index is enabled, descendant searches without {@link TraversalOptions} return
+   * widgets in document order, instead of breadth-first.
+   *
+   * @return false if the browser can't track changes to the page, so the index isn't used
+   */
+  boolean enableWidgetIndex();
+
+  /**
+   * Stops keeping the widget index, so that descendant searches walk the widget tree again.
+   */
+  void disableWidgetIndex();
+
+  /**
+   * Returns the number of invocations, errors and time taken so far by each exported method that
+   * has been called, one row per method: the method name, the invocation count, the error count,
+   * and the total and maximum time taken in milliseconds.
+   *
+   * @see MethodMetrics#get(org.openqa.selenium.WebDriver)
+   */
+  List<List<Object>> getMethodMetrics();
+
+  /**
+   * Clears the metrics collected for all exported methods, such as at the start of a test.
+   */
+  void resetMethodMetrics();
+
+  /**
+   * Runs a chain of locators in the browser, each one searching from the elements found by the
+   * step before, and returns the elements found by the last. Each step is a list of a WebDriver
+   * locator strategy ("xpath" or "css selector") and its value, or the name of a widget locator
+   * ("isWidget", "nearestWidget", "descendantWidget", "childrenWidgets" or "widgetSelector"), the
+   * widget type or selector, and for "descendantWidget", its {@link TraversalOptions#asList()
+   * options}.
+   *
+   * @param contexts the elements to search from, or an empty list to search the whole document
+   * @param steps the locators to run, in order
+   * @param firstAtEachStep true to only search from the first element found by each step
+   * @param limit the most elements to return, or a negative number for no limit
+   */
+  List<WebElement> findElementsByChain(List<WebElement> contexts, List<List<Object>> steps,
+      boolean firstAtEachStep, int limit);
+
+  /**
+   * Finds the popup of the given type which is drawn above all others: the visible (and for
+   * PopupPanels, showing) widget of that type with the highest z-index, or the last in the
+   * document of those with the same z-index.
+   *
+   * @param type the type of popup to find
+   * @return the root element of the popup, or null if none are showing
+   */
+  WebElement findTopmostPopup(String type);
+
+  /**
+   * Finds the root elements of the widgets matching the given widget selector, such as {@code
+   * FlowPanel.panel2 > Label:text("child1")}. Selectors are parsed once in the browser and reused
+   * by later calls.
+   *
+   * @param contexts the elements to search within, or an empty list to search the whole page
+   * @param selector the widget selector to match
+   * @param limit the most elements to return, or a negative number for no limit
+   * @see com.vertispan.webdriver.gwt.gwtdriver.by.ByWidgetSelector
+   */
+  List<WebElement> findWidgetsBySelector(List<WebElement> contexts, String selector, int limit);
+
+  /**
+   * Finds the root elements of the widgets of the given type whose text matches, breadth-first.
+   * The text of a widget is from {@link com.google.gwt.user.client.ui.HasText#getText()} if it
+   * has it, otherwise all of the text inside of it, so a panel matches by the text of every widget
+   * it holds.
+   *
+   * @param contexts the elements to search within, or an empty list to search the whole page
+   * @param type the type of widget to find
+   * @param text the text to match
+   * @param match how to compare the text, one of "exact", "contains", "regex" or "normalized"
+   * @param limit the most elements to return, or a negative number for no limit
+   * @see com.vertispan.webdriver.gwt.gwtdriver.by.ByWidgetText
+   */
+  List<WebElement> findWidgetsByText(List<WebElement> contexts, String type, String text,
+      String match, int limit);
 }
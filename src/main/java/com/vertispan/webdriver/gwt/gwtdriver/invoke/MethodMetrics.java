@@ -0,0 +1,109 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver.invoke;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts and timings for a single exported method, as measured in the browser. Use {@link
+ * #get(WebDriver)} to see which methods the client has spent its time on, and {@link
+ * #reset(WebDriver)} to start counting again, such as before each test.
+ */
+public class MethodMetrics {
+  private final String method;
+  private final int invocations;
+  private final int errors;
+  private final double totalMillis;
+  private final double maxMillis;
+
+  private MethodMetrics(List<Object> row) {
+    method = row.get(0).toString();
+    invocations = ((Number) row.get(1)).intValue();
+    errors = ((Number) row.get(2)).intValue();
+    totalMillis = ((Number) row.get(3)).doubleValue();
+    maxMillis = ((Number) row.get(4)).doubleValue();
+  }
+
+  /**
+   * Reads the metrics of each exported method that has been called on the first available module.
+   *
+   * @param driver the driver
+   * @return the metrics of each method that has been called, keyed by method name
+   */
+  public static Map<String, MethodMetrics> get(WebDriver driver) {
+    Map<String, MethodMetrics> metrics = new LinkedHashMap<>();
+    for (List<Object> row : ClientMethodsFactory.create(ExportedMethods.class, driver)
+        .getMethodMetrics()) {
+      MethodMetrics methodMetrics = new MethodMetrics(row);
+      metrics.put(methodMetrics.getMethod(), methodMetrics);
+    }
+    return metrics;
+  }
+
+  /**
+   * Clears the metrics of all exported methods on the first available module.
+   *
+   * @param driver the driver
+   */
+  public static void reset(WebDriver driver) {
+    ClientMethodsFactory.create(ExportedMethods.class, driver).resetMethodMetrics();
+  }
+
+  /**
+   * @return the name of the method, as "type::method"
+   */
+  public String getMethod() {
+    return method;
+  }
+
+  /**
+   * @return the number of times the method was called
+   */
+  public int getInvocations() {
+    return invocations;
+  }
+
+  /**
+   * @return the number of calls which threw an exception
+   */
+  public int getErrors() {
+    return errors;
+  }
+
+  /**
+   * @return the time spent running the method, across all calls
+   */
+  public double getTotalMillis() {
+    return totalMillis;
+  }
+
+  /**
+   * @return the time spent in the slowest call to the method
+   */
+  public double getMaxMillis() {
+    return maxMillis;
+  }
+
+  @Override
+  public String toString() {
+    return method + ": " + invocations + " calls, " + errors + " errors, " + totalMillis
+        + "ms total, " + maxMillis + "ms max";
+  }
+}
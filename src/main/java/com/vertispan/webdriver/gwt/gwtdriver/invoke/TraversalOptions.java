@@ -0,0 +1,153 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver.invoke;
+
+import com.google.gwt.user.client.ui.Widget;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Limits how far a search of the descendants of a widget goes, to bound the cost of searching deep
+ * layouts when it is known where matches can't be. Matches can also be required to be visible,
+ * checked in the browser during the same search, rather than calling {@code isDisplayed()} on each
+ * element found. Pass {@link #asList()} to {@link
+ * ExportedMethods#findDescendantWidgetElementsOfTypeWithOptions}.
+ */
+public class TraversalOptions {
+  /**
+   * Checks that a widget must pass to be returned from a search.
+   */
+  public enum Visibility {
+    /**
+     * The widget and everything containing it is visible, and it takes up space on the page.
+     */
+    VISIBLE,
+    /**
+     * The widget is attached to the page.
+     */
+    ATTACHED,
+    /**
+     * Some part of the widget is inside of the browser window, it may still need to be scrolled
+     * to.
+     */
+    IN_VIEWPORT,
+    /**
+     * The center of the widget is in the browser window, and isn't covered by another element,
+     * such as the glass panel of a modal popup, so it can be clicked.
+     */
+    NOT_COVERED
+  }
+
+  private int maxDepth = -1;
+  private boolean stopAtMatch;
+  private final List<String> skipTypes = new ArrayList<>();
+  private final Set<Visibility> visibility = EnumSet.noneOf(Visibility.class);
+
+  /**
+   * Only visits descendants down to the given depth, where the children of the context widget are
+   * at depth 1.
+   *
+   * @param maxDepth the deepest level to search
+   * @return this
+   */
+  public TraversalOptions maxDepth(int maxDepth) {
+    this.maxDepth = maxDepth;
+    return this;
+  }
+
+  /**
+   * Doesn't look inside of widgets that match the search, so that nested matches are not found.
+   *
+   * @return this
+   */
+  public TraversalOptions stopAtMatch() {
+    this.stopAtMatch = true;
+    return this;
+  }
+
+  /**
+   * Doesn't look inside of widgets of the given type (or any subtype), though the widgets
+   * themselves can still match.
+   *
+   * @param widgetType the type of widget whose descendants should be skipped
+   * @return this
+   */
+  public TraversalOptions skipDescendantsOf(Class<? extends Widget> widgetType) {
+    return skipDescendantsOf(widgetType.getName());
+  }
+
+  /**
+   * Doesn't look inside of widgets of the given type (or any subtype), though the widgets
+   * themselves can still match.
+   *
+   * @param widgetClassName the type of widget whose descendants should be skipped
+   * @return this
+   */
+  public TraversalOptions skipDescendantsOf(String widgetClassName) {
+    skipTypes.add(widgetClassName);
+    return this;
+  }
+
+  /**
+   * Only matches widgets which pass all of the given checks.
+   *
+   * @param checks the visibility checks each match must pass
+   * @return this
+   */
+  public TraversalOptions require(Visibility... checks) {
+    visibility.addAll(Arrays.asList(checks));
+    return this;
+  }
+
+  /**
+   * Only matches widgets which are visible, the same as {@code require(Visibility.VISIBLE)}.
+   *
+   * @return this
+   */
+  public TraversalOptions onlyVisible() {
+    return require(Visibility.VISIBLE);
+  }
+
+  /**
+   * @return true if no limits have been set
+   */
+  public boolean isEmpty() {
+    return maxDepth < 0 && !stopAtMatch && skipTypes.isEmpty() && visibility.isEmpty();
+  }
+
+  /**
+   * @return the options in the form they are sent to the browser
+   */
+  public List<Object> asList() {
+    return Arrays.asList(maxDepth, stopAtMatch, skipTypes,
+        visibility.stream().map(Visibility::name).collect(Collectors.toList()));
+  }
+
+  @Override
+  public String toString() {
+    return "TraversalOptions{" +
+        "maxDepth=" + maxDepth +
+        ", stopAtMatch=" + stopAtMatch +
+        ", skipTypes=" + skipTypes +
+        ", visibility=" + visibility +
+        '}';
+  }
+}
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver.invoke;
+
+import com.google.gwt.user.client.ui.Widget;
+
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A lightweight reference to a widget in the browser, by a number the browser keeps for it, rather
+ * than by a WebElement which WebDriver has to create and keep track of. Queries made through
+ * handles only send numbers back and forth, and the WebElement of a widget is only fetched once it
+ * is needed to interact with the page, such as to click on it:
+ * <pre>
+ * for (WidgetHandle label : WidgetHandle.findAll(driver, Label.class)) {
+ *   WidgetHandle panel = label.getNearest(FlowPanel.class);
+ *   ...
+ * }
+ * </pre>
+ * Handles are only valid while their widget is on the page - once it has been removed, or the page
+ * has been reloaded, using the handle throws a {@link StaleElementReferenceException}.
+ */
+public final class WidgetHandle {
+  private final WebDriver driver;
+  private final int handle;
+  private WebElement element;
+
+  private WidgetHandle(WebDriver driver, int handle) {
+    this.driver = driver;
+    this.handle = handle;
+  }
+
+  /**
+   * Finds every widget of the given type on the page.
+   *
+   * @param driver the driver
+   * @param type the type of widget to find
+   * @return the handles of the widgets
+   */
+  public static List<WidgetHandle> findAll(WebDriver driver, Class<? extends Widget> type) {
+    return findAll(driver, type.getName());
+  }
+
+  /**
+   * Finds every widget of the given type on the page.
+   *
+   * @param driver the driver
+   * @param type the name of the type of widget to find
+   * @return the handles of the widgets
+   */
+  public static List<WidgetHandle> findAll(WebDriver driver, String type) {
+    return wrap(driver, methods(driver).findWidgetHandles(-1, type, 0, -1));
+  }
+
+  /**
+   * Finds the nearest widget containing the given element.
+   *
+   * @param driver the driver
+   * @param element an element inside of a widget
+   * @return the handle of the widget, or null if the element isn't inside of a widget
+   */
+  public static WidgetHandle of(WebDriver driver, WebElement element) {
+    int handle = methods(driver).getWidgetHandle(element);
+    return handle == -1 ? null : new WidgetHandle(driver, handle);
+  }
+
+  /**
+   * Fetches the elements of all of the given widgets which haven't been fetched yet, in a single
+   * round trip.
+   *
+   * @param handles the widgets whose elements will be needed
+   */
+  public static void resolveElements(Collection<WidgetHandle> handles) {
+    List<WidgetHandle> missing = new ArrayList<>();
+    List<Integer> ids = new ArrayList<>();
+    for (WidgetHandle handle : handles) {
+      if (handle.element == null) {
+        missing.add(handle);
+        ids.add(handle.handle);
+      }
+    }
+    if (missing.isEmpty()) {
+      return;
+    }
+    List<WebElement> elements = methods(missing.get(0).driver).getElementsForHandles(ids);
+    for (int i = 0; i < missing.size(); i++) {
+      missing.get(i).element = elements.get(i);
+    }
+  }
+
+  /**
+   * @param type the type of widget to find
+   * @return the descendant widgets of the given type, like {@code ByDescendantWidget}
+   */
+  public List<WidgetHandle> findDescendants(Class<? extends Widget> type) {
+    return findDescendants(type.getName());
+  }
+
+  /**
+   * @param type the name of the type of widget to find
+   * @return the descendant widgets of the given type, like {@code ByDescendantWidget}
+   */
+  public List<WidgetHandle> findDescendants(String type) {
+    return wrap(driver, checkStale(methods(driver).findWidgetHandles(handle, type, 0, -1)));
+  }
+
+  /**
+   * @param type the type of widget to find
+   * @return the child widgets of the given type, like {@code ByWidgetChildren}
+   */
+  public List<WidgetHandle> getChildren(Class<? extends Widget> type) {
+    return getChildren(type.getName());
+  }
+
+  /**
+   * @param type the name of the type of widget to find
+   * @return the child widgets of the given type, like {@code ByWidgetChildren}
+   */
+  public List<WidgetHandle> getChildren(String type) {
+    return wrap(driver, checkStale(methods(driver).getChildWidgetHandles(handle, type)));
+  }
+
+  /**
+   * @param type the type of widget to find
+   * @return this widget or the closest parent of the given type, like {@code ByNearestWidget}, or
+   * null if there is none
+   */
+  public WidgetHandle getNearest(Class<? extends Widget> type) {
+    return getNearest(type.getName());
+  }
+
+  /**
+   * @param type the name of the type of widget to find
+   * @return this widget or the closest parent of the given type, like {@code ByNearestWidget}, or
+   * null if there is none
+   */
+  public WidgetHandle getNearest(String type) {
+    int nearest = methods(driver).getNearestWidgetHandle(handle, type);
+    if (nearest == -2) {
+      throw stale();
+    }
+    return nearest == -1 ? null : new WidgetHandle(driver, nearest);
+  }
+
+  /**
+   * @return the number the browser uses to refer to this widget
+   */
+  public int getId() {
+    return handle;
+  }
+
+  /**
+   * Fetches the root element of the widget the first time it is needed, to interact with it.
+   *
+   * @return the root element of the widget
+   * @throws StaleElementReferenceException if the widget is no longer on the page
+   */
+  public WebElement getElement() {
+    if (element == null) {
+      resolveElements(Collections.singletonList(this));
+      if (element == null) {
+        throw stale();
+      }
+    }
+    return element;
+  }
+
+  /**
+   * Clicks on the root element of the widget.
+   */
+  public void click() {
+    getElement().click();
+  }
+
+  /**
+   * Types into the root element of the widget.
+   *
+   * @param keysToSend the keys to type
+   */
+  public void sendKeys(CharSequence... keysToSend) {
+    getElement().sendKeys(keysToSend);
+  }
+
+  private List<Integer> checkStale(List<Integer> handles) {
+    if (handles == null) {
+      throw stale();
+    }
+    return handles;
+  }
+
+  private StaleElementReferenceException stale() {
+    return new StaleElementReferenceException(this + " is no longer on the page");
+  }
+
+  private static ExportedMethods methods(WebDriver driver) {
+    return ClientMethodsFactory.create(ExportedMethods.class, driver);
+  }
+
+  private static List<WidgetHandle> wrap(WebDriver driver, List<Integer> handles) {
+    List<WidgetHandle> result = new ArrayList<>(handles.size());
+    for (int handle : handles) {
+      result.add(new WidgetHandle(driver, handle));
+    }
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    WidgetHandle that = (WidgetHandle) o;
+    return handle == that.handle && driver.equals(that.driver);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(driver, handle);
+  }
+
+  @Override
+  public String toString() {
+    return "WidgetHandle " + handle;
+  }
+}
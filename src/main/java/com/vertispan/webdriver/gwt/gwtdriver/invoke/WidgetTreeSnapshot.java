@@ -0,0 +1,436 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver.invoke;
+
+import com.google.gwt.user.client.ui.Widget;
+
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A copy of the widget tree, fetched from the browser in a single call, which can then be queried
+ * locally as many times as needed. Useful for page objects that ask many questions about the
+ * structure of the same screen, such as which children a panel has or which widget contains an
+ * element:
+ * <pre>
+ * WidgetTreeSnapshot snapshot = WidgetTreeSnapshot.take(driver);
+ * for (WidgetTreeSnapshot.Node label : snapshot.getRoot().getDescendants(Label.class)) {
+ *   ...
+ * }
+ * </pre>
+ * The snapshot doesn't change as the page does, call {@link #update()} after interacting with the
+ * page to fetch only what has changed since. Types are matched by class name, so unlike queries run
+ * in the browser, interfaces can't be used.
+ * <p>
+ * For pages with a great many widgets, the snapshot can be taken without elements, which are then
+ * only fetched for the widgets that are actually used, see {@link #resolveElements(Collection)}.
+ */
+public class WidgetTreeSnapshot {
+  private final WebDriver driver;
+  private final List<WebElement> contexts;
+  private final boolean details;
+  private final boolean lazyElements;
+
+  private int version;
+  private final List<Node> nodes = new ArrayList<>();
+  private final Map<WebElement, Node> nodesByElement = new HashMap<>();
+  private final Map<Integer, Node> nodesByHandle = new HashMap<>();
+
+  /**
+   * Fetches every widget on the page, without details.
+   *
+   * @param driver the driver
+   * @return the snapshot of the widget tree
+   */
+  public static WidgetTreeSnapshot take(WebDriver driver) {
+    return take(driver, null, false, false);
+  }
+
+  /**
+   * Fetches the containing widget of the given element and all of its descendants.
+   *
+   * @param driver the driver
+   * @param root an element inside of the widget to start from, or null for the whole page
+   * @param details true to also fetch the text and visibility of each widget
+   * @return the snapshot of the widget tree
+   */
+  public static WidgetTreeSnapshot take(WebDriver driver, WebElement root, boolean details) {
+    return take(driver, root, details, false);
+  }
+
+  /**
+   * Fetches the containing widget of the given element and all of its descendants.
+   *
+   * @param driver the driver
+   * @param root an element inside of the widget to start from, or null for the whole page
+   * @param details true to also fetch the text and visibility of each widget
+   * @param lazyElements true to only fetch the element of each widget when it is first needed
+   * @return the snapshot of the widget tree
+   */
+  public static WidgetTreeSnapshot take(WebDriver driver, WebElement root, boolean details,
+      boolean lazyElements) {
+    List<WebElement> contexts =
+        root == null ? Collections.emptyList() : Collections.singletonList(root);
+    WidgetTreeSnapshot snapshot = new WidgetTreeSnapshot(driver, contexts, details, lazyElements);
+    snapshot.load();
+    return snapshot;
+  }
+
+  private WidgetTreeSnapshot(WebDriver driver, List<WebElement> contexts, boolean details,
+      boolean lazyElements) {
+    this.driver = driver;
+    this.contexts = contexts;
+    this.details = details;
+    this.lazyElements = lazyElements;
+  }
+
+  private ExportedMethods methods() {
+    return ClientMethodsFactory.create(ExportedMethods.class, driver);
+  }
+
+  /**
+   * Replaces the contents of the snapshot with the whole widget tree.
+   */
+  @SuppressWarnings("unchecked")
+  private void load() {
+    List<Object> tree = methods().getWidgetTree(contexts, details, lazyElements);
+    nodes.clear();
+    nodesByElement.clear();
+    nodesByHandle.clear();
+    List<List<String>> types = readTypes(tree.get(0));
+    List<Number> typeIds = (List<Number>) tree.get(1);
+    List<Number> parents = (List<Number>) tree.get(2);
+    List<Number> handles = (List<Number>) tree.get(3);
+    List<WebElement> elements = (List<WebElement>) tree.get(4);
+    List<Object> texts = (List<Object>) tree.get(5);
+    List<Boolean> visible = (List<Boolean>) tree.get(6);
+    version = ((Number) tree.get(7)).intValue();
+    for (int i = 0; i < typeIds.size(); i++) {
+      Node node = add(handles.get(i).intValue(), types.get(typeIds.get(i).intValue()),
+          elements == null ? null : elements.get(i));
+      int parentIndex = parents.get(i).intValue();
+      if (parentIndex >= 0) {
+        node.parent = nodes.get(parentIndex);
+        node.parent.children.add(node);
+      }
+      if (details) {
+        node.text = texts.get(i).toString();
+        node.visible = visible.get(i);
+      }
+      nodes.add(node);
+    }
+  }
+
+  /**
+   * Fetches only what has changed in the browser since the snapshot was taken or last updated, and
+   * applies it to this snapshot. Widgets which are still on the page keep the same {@link Node}.
+   * If the browser no longer has the state this snapshot was taken from, the whole tree is
+   * fetched again instead.
+   */
+  @SuppressWarnings("unchecked")
+  public void update() {
+    List<Object> changes = nodes.isEmpty() ? null
+        : methods().getWidgetTreeChanges(version, lazyElements);
+    if (changes == null) {
+      load();
+      return;
+    }
+    version = ((Number) changes.get(0)).intValue();
+    List<List<String>> types = readTypes(changes.get(1));
+    List<Number> added = (List<Number>) changes.get(2);
+    List<Number> addedTypeIds = (List<Number>) changes.get(3);
+    List<WebElement> addedElements = (List<WebElement>) changes.get(4);
+    for (int i = 0; i < added.size(); i++) {
+      add(added.get(i).intValue(), types.get(addedTypeIds.get(i).intValue()),
+          addedElements == null ? null : addedElements.get(i));
+    }
+    for (Object item : (List<Object>) changes.get(5)) {
+      List<Number> row = (List<Number>) item;
+      Node parent = nodesByHandle.get(row.get(0).intValue());
+      parent.children.clear();
+      for (Number handle : row.subList(1, row.size())) {
+        Node child = nodesByHandle.get(handle.intValue());
+        child.parent = parent;
+        parent.children.add(child);
+      }
+    }
+    for (Number handle : (List<Number>) changes.get(6)) {
+      Node node = nodesByHandle.remove(handle.intValue());
+      if (node.element != null) {
+        nodesByElement.remove(node.element);
+      }
+    }
+    if (changes.get(7) != null) {
+      for (Object item : (List<Object>) changes.get(7)) {
+        List<Object> row = (List<Object>) item;
+        Node node = nodesByHandle.get(((Number) row.get(0)).intValue());
+        node.text = row.get(1).toString();
+        node.visible = (Boolean) row.get(2);
+      }
+    }
+
+    // put the nodes back in depth-first order
+    Node root = nodes.get(0);
+    nodes.clear();
+    Deque<Node> nodesToVisit = new ArrayDeque<>();
+    nodesToVisit.push(root);
+    while (!nodesToVisit.isEmpty()) {
+      Node curr = nodesToVisit.pop();
+      nodes.add(curr);
+      for (int i = curr.children.size() - 1; i >= 0; i--) {
+        nodesToVisit.push(curr.children.get(i));
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<List<String>> readTypes(Object value) {
+    List<List<String>> types = new ArrayList<>();
+    for (Object type : (List<Object>) value) {
+      List<String> names = new ArrayList<>();
+      for (Object name : (List<Object>) type) {
+        names.add(name.toString());
+      }
+      types.add(names);
+    }
+    return types;
+  }
+
+  private Node add(int handle, List<String> typeNames, WebElement element) {
+    Node node = new Node(this, handle, typeNames);
+    nodesByHandle.put(handle, node);
+    if (element != null) {
+      node.element = element;
+      nodesByElement.put(element, node);
+    }
+    return node;
+  }
+
+  /**
+   * @return the widget the snapshot was taken from, or null if there was no widget there
+   */
+  public Node getRoot() {
+    return nodes.isEmpty() ? null : nodes.get(0);
+  }
+
+  /**
+   * @return every widget in the snapshot, each after its parent, in depth-first order
+   */
+  public List<Node> getNodes() {
+    return Collections.unmodifiableList(nodes);
+  }
+
+  /**
+   * Finds the widget whose root element is the given element.
+   *
+   * @param element the root element of a widget
+   * @return the widget, or null if the element isn't the root of a widget in the snapshot
+   */
+  public Node getNode(WebElement element) {
+    Node node = nodesByElement.get(element);
+    if (node == null && nodesByElement.size() != nodes.size()) {
+      // some elements haven't been fetched, look the element up by its handle instead
+      int handle = methods().getHandlesForElements(Collections.singletonList(element)).get(0);
+      node = nodesByHandle.get(handle);
+      if (node != null && node.element == null) {
+        node.element = element;
+        nodesByElement.put(element, node);
+      }
+    }
+    return node;
+  }
+
+  /**
+   * Fetches the elements of all of the given widgets which haven't been fetched yet, in a single
+   * round trip, for snapshots taken with lazy elements.
+   *
+   * @param nodes the widgets whose elements will be needed
+   */
+  public void resolveElements(Collection<Node> nodes) {
+    List<Node> missing = new ArrayList<>();
+    List<Integer> handles = new ArrayList<>();
+    for (Node node : nodes) {
+      if (node.element == null) {
+        missing.add(node);
+        handles.add(node.handle);
+      }
+    }
+    if (missing.isEmpty()) {
+      return;
+    }
+    List<WebElement> elements = methods().getElementsForHandles(handles);
+    for (int i = 0; i < missing.size(); i++) {
+      Node node = missing.get(i);
+      node.element = elements.get(i);
+      if (node.element != null) {
+        nodesByElement.put(node.element, node);
+      }
+    }
+  }
+
+  /**
+   * One widget in the snapshot.
+   */
+  public static class Node {
+    private final WidgetTreeSnapshot snapshot;
+    private final int handle;
+    private WebElement element;
+    private final List<String> typeNames;
+    private Node parent;
+    private final List<Node> children = new ArrayList<>();
+    private String text;
+    private Boolean visible;
+
+    private Node(WidgetTreeSnapshot snapshot, int handle, List<String> typeNames) {
+      this.snapshot = snapshot;
+      this.handle = handle;
+      this.typeNames = typeNames;
+    }
+
+    /**
+     * @return the root element of the widget, fetching it first if it hasn't been already
+     * @throws StaleElementReferenceException if the element hadn't been fetched, and the widget
+     * is no longer on the page or the page has been reloaded
+     */
+    public WebElement getElement() {
+      if (element == null) {
+        snapshot.resolveElements(Collections.singletonList(this));
+        if (element == null) {
+          throw new StaleElementReferenceException(this + " is no longer on the page");
+        }
+      }
+      return element;
+    }
+
+    /**
+     * @return the number the browser uses to refer to this widget
+     */
+    public int getHandle() {
+      return handle;
+    }
+
+    /**
+     * @return the name of the class of the widget
+     */
+    public String getClassName() {
+      return typeNames.get(0);
+    }
+
+    /**
+     * @param type the name of the class
+     * @return true if the widget is of that class, or a subclass
+     */
+    public boolean isOfType(String type) {
+      return typeNames.contains(type);
+    }
+
+    /**
+     * @param type the class
+     * @return true if the widget is of that class, or a subclass
+     */
+    public boolean isOfType(Class<? extends Widget> type) {
+      return isOfType(type.getName());
+    }
+
+    /**
+     * @return the parent widget, or null if this is the root of the snapshot
+     */
+    public Node getParent() {
+      return parent;
+    }
+
+    /**
+     * @return the child widgets, in order
+     */
+    public List<Node> getChildren() {
+      return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * @param type the type of widget to find
+     * @return the child widgets of the given type, like {@code ByWidgetChildren}
+     */
+    public List<Node> getChildren(Class<? extends Widget> type) {
+      List<Node> result = new ArrayList<>();
+      for (Node child : children) {
+        if (child.isOfType(type)) {
+          result.add(child);
+        }
+      }
+      return result;
+    }
+
+    /**
+     * @param type the type of widget to find
+     * @return the descendant widgets of the given type in breadth-first order, like {@code
+     * ByDescendantWidget}
+     */
+    public List<Node> getDescendants(Class<? extends Widget> type) {
+      List<Node> result = new ArrayList<>();
+      Deque<Node> nodesToVisit = new ArrayDeque<>(children);
+      while (!nodesToVisit.isEmpty()) {
+        Node curr = nodesToVisit.removeFirst();
+        if (curr.isOfType(type)) {
+          result.add(curr);
+        }
+        nodesToVisit.addAll(curr.children);
+      }
+      return result;
+    }
+
+    /**
+     * @param type the type of widget to find
+     * @return this widget or the closest parent of the given type, like {@code ByNearestWidget},
+     * or null if there is none
+     */
+    public Node getNearest(Class<? extends Widget> type) {
+      Node curr = this;
+      while (curr != null && !curr.isOfType(type)) {
+        curr = curr.parent;
+      }
+      return curr;
+    }
+
+    /**
+     * @return the text of the widget, or null if the snapshot was taken without details
+     */
+    public String getText() {
+      return text;
+    }
+
+    /**
+     * @return whether the widget is visible, or null if the snapshot was taken without details
+     */
+    public Boolean isVisible() {
+      return visible;
+    }
+
+    @Override
+    public String toString() {
+      return getClassName() + (text == null ? "" : " \"" + text + "\"");
+    }
+  }
+}
@@ -19,13 +19,11 @@ package com.vertispan.webdriver.gwt.gwtdriver.models;
 
 import com.google.gwt.user.client.ui.ButtonBase;
 
-import com.vertispan.webdriver.gwt.gwtdriver.by.ByNearestWidget;
+import com.vertispan.webdriver.gwt.gwtdriver.by.ByWidgetText;
 import com.vertispan.webdriver.gwt.gwtdriver.models.Button.ButtonFinder;
 
-import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.pagefactory.ByChained;
 
 public class Button extends GwtWidget<ButtonFinder> {
 
@@ -39,9 +37,15 @@ public class Button extends GwtWidget<ButtonFinder> {
 
   public static class ButtonFinder extends GwtWidgetFinder<Button> {
     private String text;
+    private ByWidgetText.Match match;
 
     public ButtonFinder withText(String text) {
+      return withText(text, ByWidgetText.Match.CONTAINS);
+    }
+
+    public ButtonFinder withText(String text, ByWidgetText.Match match) {
       this.text = text;
+      this.match = match;
       return this;
     }
 
@@ -49,10 +53,7 @@ public class Button extends GwtWidget<ButtonFinder> {
     public Button done() {
       WebElement element = elt;
       if (text != null) {
-        String escaped = escapeToString(text);
-        element = elt.findElement(new ByChained(
-            By.xpath(".//*[contains(text(), " + escaped + ")]"),
-            new ByNearestWidget(driver, ButtonBase.class)));
+        element = elt.findElement(new ByWidgetText(driver, ButtonBase.class, text, match));
       }
 
       return new Button(driver, element);
@@ -19,20 +19,18 @@ package com.vertispan.webdriver.gwt.gwtdriver.models;
 
 import com.google.gwt.user.client.ui.DialogBox;
 
-import com.vertispan.webdriver.gwt.gwtdriver.by.ByNearestWidget;
 import com.vertispan.webdriver.gwt.gwtdriver.by.ByWidget;
+import com.vertispan.webdriver.gwt.gwtdriver.by.ByWidgetText;
 import com.vertispan.webdriver.gwt.gwtdriver.by.FasterByChained;
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.ClientMethodsFactory;
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.ExportedMethods;
 import com.vertispan.webdriver.gwt.gwtdriver.models.Dialog.DialogFinder;
 import com.vertispan.webdriver.gwt.gwtdriver.models.GwtWidget.ForWidget;
 
 import org.openqa.selenium.By;
+import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.pagefactory.ByChained;
-
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
 
 /**
  *
@@ -64,9 +62,15 @@ public class Dialog extends GwtWidget<DialogFinder> {
   public static class DialogFinder extends GwtWidgetFinder<Dialog> {
     private boolean top = false;
     private String heading;
+    private ByWidgetText.Match match;
 
     public DialogFinder withHeading(String heading) {
+      return withHeading(heading, ByWidgetText.Match.CONTAINS);
+    }
+
+    public DialogFinder withHeading(String heading, ByWidgetText.Match match) {
       this.heading = heading;
+      this.match = match;
       return this;
     }
 
@@ -79,23 +83,14 @@ public class Dialog extends GwtWidget<DialogFinder> {
     public Dialog done() {
       WebElement elt = this.elt;
       if (heading != null) {
-        String escaped = escapeToString(heading);
-        elt = elt.findElement(new FasterByChained(By.xpath("//body/*"),
-            new ByWidget(driver, DialogBox.class),
-            By.xpath(".//*[contains(text(), " + escaped + ")]"),
-            new ByNearestWidget(driver, DialogBox.class)));
+        // dialogs are attached to the body, not to the element being searched from
+        elt = driver.findElement(new ByWidgetText(driver, DialogBox.class, heading, match));
       } else if (top) {
-        List<WebElement> allWindows = driver.findElements(new ByChained(
-            By.xpath("//body/*"),
-            new ByWidget(driver, DialogBox.class)
-        ));
-        Collections.sort(allWindows, new Comparator<WebElement>() {
-          public int compare(WebElement o1, WebElement o2) {
-            return Integer.parseInt(o1.getCssValue("z-index")) - Integer.parseInt(
-                o2.getCssValue("z-index"));
-          }
-        });
-        elt = allWindows.get(0);
+        elt = ClientMethodsFactory.create(ExportedMethods.class, driver)
+            .findTopmostPopup(DialogBox.class.getName());
+        if (elt == null) {
+          throw new NoSuchElementException("Cannot find a showing " + DialogBox.class.getName());
+        }
       }
 
       return new Dialog(driver, elt);
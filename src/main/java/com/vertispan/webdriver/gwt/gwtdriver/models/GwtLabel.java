@@ -19,12 +19,10 @@ package com.vertispan.webdriver.gwt.gwtdriver.models;
 
 import com.google.gwt.user.client.ui.Label;
 
-import com.vertispan.webdriver.gwt.gwtdriver.by.ByNearestWidget;
-import com.vertispan.webdriver.gwt.gwtdriver.by.FasterByChained;
+import com.vertispan.webdriver.gwt.gwtdriver.by.ByWidgetText;
 import com.vertispan.webdriver.gwt.gwtdriver.models.GwtLabel.GwtLabelFinder;
 import com.vertispan.webdriver.gwt.gwtdriver.models.GwtWidget.ForWidget;
 
-import org.openqa.selenium.By;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
 
@@ -41,9 +39,15 @@ public class GwtLabel extends GwtWidget<GwtLabelFinder> {
 
   public static class GwtLabelFinder extends GwtWidgetFinder<GwtLabel> {
     String text;
+    ByWidgetText.Match match;
 
     public GwtLabelFinder withText(String text) {
+      return withText(text, ByWidgetText.Match.CONTAINS);
+    }
+
+    public GwtLabelFinder withText(String text, ByWidgetText.Match match) {
       this.text = text;
+      this.match = match;
       return this;
     }
 
@@ -51,9 +55,7 @@ public class GwtLabel extends GwtWidget<GwtLabelFinder> {
     public GwtLabel done() {
       WebElement elt = this.elt;
       if (text != null) {
-        elt = elt.findElement(
-            new FasterByChained(By.xpath(".//*[contains(text(), " + escapeToString(text) + ")]"),
-                new ByNearestWidget(driver, Label.class)));
+        elt = elt.findElement(new ByWidgetText(driver, Label.class, text, match));
       }
       return new GwtLabel(driver, elt);
     }
@@ -36,6 +36,7 @@ import java.lang.annotation.Target;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.Collections;
 
 /**
  * Represents a GWT Widget class. Subclasses should add appropriate methods to enable basic
@@ -269,6 +270,28 @@ public class GwtWidget<F extends GwtWidgetFinder<?>> {
     return methods.instanceofwidget(element, widgetType.value().getName());
   }
 
+  /**
+   * Reads several properties of this widget in one call to the browser. To read properties from
+   * many widgets at once, use {@link WidgetProperties#read} instead.
+   *
+   * @param properties the properties to read
+   * @return a table of the values read, with a single row
+   */
+  public WidgetProperties readProperties(WidgetProperty... properties) {
+    return WidgetProperties.read(Collections.singletonList(this), properties);
+  }
+
+  /**
+   * Reads the state of this widget through the widget itself, such as its value, text and whether
+   * it is enabled. To read the state of many widgets at once, use {@link WidgetState#read}
+   * instead.
+   *
+   * @return the state of the widget
+   */
+  public WidgetState getState() {
+    return WidgetState.read(Collections.singletonList(this)).get(0);
+  }
+
   /**
    * Helper method to generate a string literal that can be used in an xpath
    *
@@ -50,4 +50,22 @@ public class Input extends GwtWidget<GwtWidgetFinder<Input>> {
   public String getValue() {
     return getElement().getAttribute("value");
   }
+
+  /**
+   * Reads the value from the widget rather than the input element, so for example an IntegerBox
+   * returns a number, or null if its text isn't a valid number.
+   *
+   * @return the value of the widget
+   * @see WidgetState#getValue()
+   */
+  public Object getWidgetValue() {
+    return getState().getValue();
+  }
+
+  /**
+   * @return true if the widget is enabled
+   */
+  public boolean isEnabled() {
+    return Boolean.TRUE.equals(getState().isEnabled());
+  }
 }
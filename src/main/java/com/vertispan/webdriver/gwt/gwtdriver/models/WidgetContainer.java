@@ -21,15 +21,14 @@ import com.google.gwt.user.client.ui.HasWidgets;
 
 import com.vertispan.webdriver.gwt.gwtdriver.by.ByWidget;
 import com.vertispan.webdriver.gwt.gwtdriver.by.CheatingByChained;
+import com.vertispan.webdriver.gwt.gwtdriver.by.GwtBy;
 
 import org.openqa.selenium.By;
 import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.WebElement;
-import org.openqa.selenium.support.pagefactory.ByChained;
 
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
 import java.util.List;
 
 /**
@@ -55,10 +54,10 @@ public class WidgetContainer extends GwtWidget<GwtWidgetFinder<WidgetContainer>>
    * @return the widgets found that match the by query
    */
   public List<GwtWidget<?>> findWidgets(By by) {
-    LinkedHashSet<WebElement> eltsSet = new LinkedHashSet<WebElement>(
-        getElement().findElements(new ByChained(by, new ByWidget(getDriver()))));
+    List<WebElement> elts = new ByWidget(getDriver())
+        .filter(getElement(), getElement().findElements(by));
     List<GwtWidget<?>> children = new ArrayList<GwtWidget<?>>();
-    for (WebElement elt : eltsSet) {
+    for (WebElement elt : elts) {
       children.add(new GwtWidget<GwtWidgetFinder<?>>(getDriver(), elt));
     }
     return children;
@@ -76,4 +75,22 @@ public class WidgetContainer extends GwtWidget<GwtWidgetFinder<WidgetContainer>>
     return new GwtWidget<GwtWidgetFinder<?>>(getDriver(), elt);
   }
 
+  /**
+   * Finds child/descendant widgets like {@link #findWidgets(By)}, and reads the given properties
+   * of all of them. If the locator can be run in the browser, such as an xpath or css locator, or
+   * a {@link com.vertispan.webdriver.gwt.gwtdriver.by.GwtBy} locator, this takes one call to the
+   * browser for both, otherwise one call to find the widgets and another to read them.
+   *
+   * @param by how to find the widgets
+   * @param properties the properties to read from each widget
+   * @return a table of the values read, with a row for each widget found
+   */
+  public WidgetProperties readProperties(By by, WidgetProperty... properties) {
+    List<List<Object>> steps = GwtBy.toChainSteps(by, new ByWidget(getDriver()));
+    if (steps == null) {
+      return WidgetProperties.read(findWidgets(by), properties);
+    }
+    return WidgetProperties.find(this, steps, properties);
+  }
+
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver.models;
+
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.ClientMethodsFactory;
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.ExportedMethods;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A table of properties read from many widgets in a single round trip, with a row for each widget
+ * and a column for each property. Asserting the text of a hundred labels this way costs one call
+ * to the browser, instead of one {@code getText()} call for each label:
+ * <pre>
+ * WidgetProperties properties = WidgetProperties.read(labels, WidgetProperty.TEXT);
+ * assertEquals(expectedTexts, properties.getStrings(WidgetProperty.TEXT));
+ * </pre>
+ * Values are strings or booleans, or null when a widget doesn't have that property.
+ */
+public class WidgetProperties {
+  private final List<GwtWidget<?>> widgets;
+  private final List<WidgetProperty> properties;
+  private final List<List<Object>> rows;
+
+  private WidgetProperties(List<GwtWidget<?>> widgets, List<WidgetProperty> properties,
+      List<List<Object>> rows) {
+    this.widgets = widgets;
+    this.properties = properties;
+    this.rows = rows;
+  }
+
+  /**
+   * Reads the given properties of each widget.
+   *
+   * @param widgets the widgets to read, which must all use the same driver
+   * @param properties the properties to read from each widget
+   * @return a table of the values read
+   */
+  public static WidgetProperties read(List<? extends GwtWidget<?>> widgets,
+      WidgetProperty... properties) {
+    List<GwtWidget<?>> copy = new ArrayList<>(widgets);
+    List<WidgetProperty> columns = Arrays.asList(properties);
+    if (copy.isEmpty()) {
+      return new WidgetProperties(copy, columns, Collections.emptyList());
+    }
+    WebDriver driver = copy.get(0).getDriver();
+    List<WebElement> elements = copy.stream()
+        .map(GwtWidget::getElement)
+        .collect(Collectors.toList());
+    List<String> names = columns.stream()
+        .map(WidgetProperty::getName)
+        .collect(Collectors.toList());
+    List<List<Object>> rows = ClientMethodsFactory.create(ExportedMethods.class, driver)
+        .getWidgetProperties(elements, names);
+    return new WidgetProperties(copy, columns, rows);
+  }
+
+  /**
+   * Finds widgets by running the chain steps from the container, and reads the given properties of
+   * each of them, in a single call.
+   */
+  static WidgetProperties find(WidgetContainer container, List<List<Object>> steps,
+      WidgetProperty... properties) {
+    WebDriver driver = container.getDriver();
+    List<WidgetProperty> columns = Arrays.asList(properties);
+    List<String> names = columns.stream()
+        .map(WidgetProperty::getName)
+        .collect(Collectors.toList());
+    List<List<Object>> found = ClientMethodsFactory.create(ExportedMethods.class, driver)
+        .findWidgetProperties(Collections.singletonList(container.getElement()), steps, names);
+    List<GwtWidget<?>> widgets = new ArrayList<>(found.size());
+    List<List<Object>> rows = new ArrayList<>(found.size());
+    for (List<Object> row : found) {
+      widgets.add(new GwtWidget<GwtWidgetFinder<?>>(driver, (WebElement) row.get(0)));
+      rows.add(row.subList(1, row.size()));
+    }
+    return new WidgetProperties(widgets, columns, rows);
+  }
+
+  /**
+   * @return the number of widgets read
+   */
+  public int size() {
+    return rows.size();
+  }
+
+  /**
+   * @return the widgets read, in the same order as the rows
+   */
+  public List<GwtWidget<?>> getWidgets() {
+    return Collections.unmodifiableList(widgets);
+  }
+
+  /**
+   * @param row the index of the widget
+   * @param property the property to get
+   * @return the value of the property for that widget
+   * @throws IllegalArgumentException if the property wasn't read
+   */
+  public Object get(int row, WidgetProperty property) {
+    return rows.get(row).get(indexOf(property));
+  }
+
+  /**
+   * @param row the index of the widget
+   * @param property the property to get
+   * @return the value of the property for that widget, as a string
+   * @throws IllegalArgumentException if the property wasn't read
+   */
+  public String getString(int row, WidgetProperty property) {
+    Object value = get(row, property);
+    return value == null ? null : value.toString();
+  }
+
+  /**
+   * @param row the index of the widget
+   * @param property the property to get, such as {@link WidgetProperty#ENABLED}
+   * @return the value of the property for that widget, or null if the widget doesn't have it
+   * @throws IllegalArgumentException if the property wasn't read
+   */
+  public Boolean getBoolean(int row, WidgetProperty property) {
+    return (Boolean) get(row, property);
+  }
+
+  /**
+   * @param property the property to get
+   * @return the value of the property for each widget, in the same order as the widgets
+   * @throws IllegalArgumentException if the property wasn't read
+   */
+  public List<Object> getColumn(WidgetProperty property) {
+    int column = indexOf(property);
+    return rows.stream().map(row -> row.get(column)).collect(Collectors.toList());
+  }
+
+  /**
+   * @param property the property to get
+   * @return the value of the property for each widget as a string, in the same order as the
+   * widgets
+   * @throws IllegalArgumentException if the property wasn't read
+   */
+  public List<String> getStrings(WidgetProperty property) {
+    return getColumn(property).stream()
+        .map(value -> value == null ? null : value.toString())
+        .collect(Collectors.toList());
+  }
+
+  private int indexOf(WidgetProperty property) {
+    int column = properties.indexOf(property);
+    if (column == -1) {
+      throw new IllegalArgumentException("Property " + property + " was not read, only "
+          + properties);
+    }
+    return column;
+  }
+
+  @Override
+  public String toString() {
+    return "WidgetProperties{" +
+        "properties=" + properties +
+        ", rows=" + rows +
+        '}';
+  }
+}
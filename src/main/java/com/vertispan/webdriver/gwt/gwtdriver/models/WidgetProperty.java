@@ -0,0 +1,95 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver.models;
+
+import java.util.Objects;
+
+/**
+ * A property of a widget which can be read for many widgets at once with {@link
+ * WidgetProperties#read}, rather than asking WebDriver for each one in turn.
+ */
+public final class WidgetProperty {
+  /**
+   * The class name of the widget.
+   */
+  public static final WidgetProperty TYPE = new WidgetProperty("type");
+  /**
+   * The text of a {@link com.google.gwt.user.client.ui.HasText} widget, such as a label, button
+   * or dialog heading, or the text inside of any other widget.
+   */
+  public static final WidgetProperty TEXT = new WidgetProperty("text");
+  /**
+   * The text in an input widget, the selected value of a ListBox, or the value of any other
+   * {@link com.google.gwt.user.client.ui.HasValue} widget as a string.
+   */
+  public static final WidgetProperty VALUE = new WidgetProperty("value");
+  /**
+   * Whether a {@link com.google.gwt.user.client.ui.HasEnabled} widget is enabled.
+   */
+  public static final WidgetProperty ENABLED = new WidgetProperty("enabled");
+  /**
+   * The style names of the widget, separated by spaces.
+   */
+  public static final WidgetProperty STYLE_NAMES = new WidgetProperty("styleNames");
+  /**
+   * Whether the widget is visible and takes up space on the page.
+   */
+  public static final WidgetProperty VISIBLE = new WidgetProperty("visible");
+
+  private final String name;
+
+  private WidgetProperty(String name) {
+    this.name = name;
+  }
+
+  /**
+   * An attribute of the root element of the widget, or null if it isn't set.
+   *
+   * @param name the name of the attribute
+   * @return the property to read the attribute
+   */
+  public static WidgetProperty attribute(String name) {
+    return new WidgetProperty("attribute:" + name);
+  }
+
+  /**
+   * @return the name that the browser knows this property by
+   */
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    return name.equals(((WidgetProperty) o).name);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(name);
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
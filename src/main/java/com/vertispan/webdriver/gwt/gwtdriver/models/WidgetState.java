@@ -0,0 +1,125 @@
+/*
+ * Copyright 2022 Vertispan LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.vertispan.webdriver.gwt.gwtdriver.models;
+
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.ClientMethodsFactory;
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.ExportedMethods;
+
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The state of a widget, read through the GWT widget itself rather than its DOM: the value of a
+ * {@link com.google.gwt.user.client.ui.HasValue} such as a CheckBox or IntegerBox, the text of a
+ * {@link com.google.gwt.user.client.ui.HasText}, whether a {@link
+ * com.google.gwt.user.client.ui.HasEnabled} is enabled, and the selection of a ListBox. The state
+ * of every widget on a screen can be read in one call with {@link #read(List)}.
+ */
+public class WidgetState {
+  private final String type;
+  private final Object value;
+  private final String text;
+  private final Boolean enabled;
+  private final List<Integer> selectedIndexes;
+
+  private WidgetState(List<Object> row) {
+    type = (String) row.get(0);
+    value = row.get(1);
+    text = (String) row.get(2);
+    enabled = (Boolean) row.get(3);
+    @SuppressWarnings("unchecked")
+    List<Number> selected = (List<Number>) row.get(4);
+    selectedIndexes = selected == null ? null : Collections.unmodifiableList(
+        selected.stream().map(Number::intValue).collect(Collectors.toList()));
+  }
+
+  /**
+   * Reads the state of each widget.
+   *
+   * @param widgets the widgets to read, which must all use the same driver
+   * @return the state of each widget, in the same order
+   */
+  public static List<WidgetState> read(List<? extends GwtWidget<?>> widgets) {
+    if (widgets.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<WebElement> elements = widgets.stream()
+        .map(GwtWidget::getElement)
+        .collect(Collectors.toList());
+    List<List<Object>> rows = ClientMethodsFactory
+        .create(ExportedMethods.class, widgets.get(0).getDriver())
+        .getWidgetState(elements);
+    List<WidgetState> states = new ArrayList<>();
+    for (List<Object> row : rows) {
+      states.add(row == null ? null : new WidgetState(row));
+    }
+    return states;
+  }
+
+  /**
+   * @return the class name of the widget
+   */
+  public String getType() {
+    return type;
+  }
+
+  /**
+   * The value of a HasValue widget, or the selected value of a ListBox. Strings and booleans are
+   * returned as they are, numbers as a Long or Double, dates as a number of milliseconds, and other
+   * values as a string.
+   *
+   * @return the value of the widget, or null if it has no value
+   */
+  public Object getValue() {
+    return value;
+  }
+
+  /**
+   * @return the text of a HasText widget, or null if the widget doesn't have text
+   */
+  public String getText() {
+    return text;
+  }
+
+  /**
+   * @return whether a HasEnabled widget is enabled, or null if it can't be disabled
+   */
+  public Boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @return the indexes of the selected items of a ListBox, or null for any other widget
+   */
+  public List<Integer> getSelectedIndexes() {
+    return selectedIndexes;
+  }
+
+  @Override
+  public String toString() {
+    return "WidgetState{" +
+        "type='" + type + '\'' +
+        ", value=" + value +
+        ", text=" + (text == null ? null : "'" + text + "'") +
+        ", enabled=" + enabled +
+        (selectedIndexes == null ? "" : ", selectedIndexes=" + selectedIndexes) +
+        '}';
+  }
+}
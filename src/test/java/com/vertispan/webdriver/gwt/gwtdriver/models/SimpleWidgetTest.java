@@ -18,15 +18,34 @@
 package com.vertispan.webdriver.gwt.gwtdriver.models;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+import com.google.gwt.user.client.ui.ButtonBase;
+import com.google.gwt.user.client.ui.CheckBox;
+import com.google.gwt.user.client.ui.DialogBox;
 import com.google.gwt.user.client.ui.FlowPanel;
+import com.google.gwt.user.client.ui.HTML;
+import com.google.gwt.user.client.ui.HasText;
+import com.google.gwt.user.client.ui.IntegerBox;
 import com.google.gwt.user.client.ui.Label;
+import com.google.gwt.user.client.ui.ListBox;
+import com.google.gwt.user.client.ui.PopupPanel;
 import com.google.gwt.user.client.ui.RootPanel;
 import com.google.gwt.user.client.ui.TextBox;
+import com.google.gwt.user.client.ui.Widget;
 
+import com.vertispan.webdriver.gwt.gwtdriver.ModuleUtilities;
+import com.vertispan.webdriver.gwt.gwtdriver.RoundTripRecorder;
+import com.vertispan.webdriver.gwt.gwtdriver.by.ByWidgetText.Match;
 import com.vertispan.webdriver.gwt.gwtdriver.by.GwtBy;
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.ClientMethodsBatch;
 import com.vertispan.webdriver.gwt.gwtdriver.invoke.ClientMethodsFactory;
 import com.vertispan.webdriver.gwt.gwtdriver.invoke.ExportedMethods;
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.MethodMetrics;
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.TraversalOptions.Visibility;
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.WidgetHandle;
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.WidgetTreeSnapshot;
+import com.vertispan.webdriver.gwt.gwtdriver.invoke.WidgetTreeSnapshot.Node;
 import com.vertispan.webdriver.gwt.gwtdriver.models.Dialog.DialogFinder;
 
 import org.eclipse.jetty.server.NetworkConnector;
@@ -37,7 +56,10 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
 import org.openqa.selenium.Point;
+import org.openqa.selenium.StaleElementReferenceException;
 import org.openqa.selenium.TimeoutException;
 import org.openqa.selenium.WebElement;
 import org.openqa.selenium.chrome.ChromeDriver;
@@ -45,7 +67,12 @@ import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.interactions.Actions;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import io.github.bonigarcia.wdm.WebDriverManager;
 
@@ -55,7 +82,8 @@ import io.github.bonigarcia.wdm.WebDriverManager;
 public class SimpleWidgetTest {
 
   // a bit dumb as this will have to be updated every time the test UI changes
-  private static final int TOTAL_WIDGET_COUNT = 13;
+  // the CheckBox is also the listener of its input element, so it is counted twice
+  private static final int TOTAL_WIDGET_COUNT = 17;
 
   public static class SmokeTestWidget {
     @Child(type = RootPanel.class)
@@ -143,6 +171,58 @@ public class SimpleWidgetTest {
     assertEquals("asdf", textBox.getValue());
     textBox.sendKeys("fdsa");
 
+    // read several properties of each widget in one call
+    WidgetProperties properties = WidgetProperties.read(panel1Children, WidgetProperty.TEXT,
+        WidgetProperty.VALUE, WidgetProperty.ENABLED, WidgetProperty.STYLE_NAMES,
+        WidgetProperty.VISIBLE, WidgetProperty.attribute("type"));
+    assertEquals(3, properties.size());
+    assertEquals(textBox.getValue(), properties.getString(0, WidgetProperty.VALUE));
+    assertEquals("text", properties.getString(0, WidgetProperty.attribute("type")));
+    assertEquals("Open dialog", properties.getString(1, WidgetProperty.TEXT));
+    assertNull(properties.get(1, WidgetProperty.VALUE));
+    assertTrue(properties.getString(1, WidgetProperty.STYLE_NAMES).contains("gwt-Button"));
+    assertEquals("Another Label in the panel", properties.getString(2, WidgetProperty.TEXT));
+    assertNull(properties.getBoolean(2, WidgetProperty.ENABLED));
+    assertEquals(Arrays.asList(true, true, null), properties.getColumn(WidgetProperty.ENABLED));
+    assertEquals(Arrays.asList(true, true, true), properties.getColumn(WidgetProperty.VISIBLE));
+    assertThrows(IllegalArgumentException.class,
+        () -> properties.get(0, WidgetProperty.TYPE));
+
+    // read typed state from the widgets themselves
+    List<WidgetState> states = WidgetState.read(panel1Children);
+    assertEquals(TextBox.class.getName(), states.get(0).getType());
+    assertEquals(textBox.getValue(), states.get(0).getValue());
+    assertEquals(textBox.getValue(), textBox.getWidgetValue());
+    assertTrue(textBox.isEnabled());
+    assertEquals("Open dialog", states.get(1).getText());
+    assertEquals(Boolean.TRUE, states.get(1).isEnabled());
+    assertNull(states.get(1).getValue());
+    assertNull(states.get(2).isEnabled());
+    assertNull(states.get(2).getSelectedIndexes());
+
+    // numbers come back as Long or Double, booleans as Boolean, and a ListBox has its selection
+    List<GwtWidget<?>> typedWidgets = Arrays.asList(
+        rootPanel.findWidget(GwtBy.descendantWidget(IntegerBox.class)),
+        rootPanel.findWidget(GwtBy.descendantWidget(CheckBox.class)),
+        rootPanel.findWidget(GwtBy.descendantWidget(ListBox.class)));
+    List<WidgetState> typedStates = WidgetState.read(typedWidgets);
+    assertEquals(IntegerBox.class.getName(), typedStates.get(0).getType());
+    assertEquals(42L, typedStates.get(0).getValue());
+    assertEquals("42", typedStates.get(0).getText());
+    assertEquals(42L, typedWidgets.get(0).as(Input.class).getWidgetValue());
+    assertEquals(Boolean.TRUE, typedStates.get(1).getValue());
+    assertEquals("Check me", typedStates.get(1).getText());
+    assertEquals(Boolean.TRUE, typedStates.get(1).isEnabled());
+    assertNull(typedStates.get(1).getSelectedIndexes());
+    assertEquals("a", typedStates.get(2).getValue());
+    assertNull(typedStates.get(2).getText());
+    assertEquals(Arrays.asList(0, 2), typedStates.get(2).getSelectedIndexes());
+
+    ExportedMethods exportedMethods = ClientMethodsFactory.create(ExportedMethods.class, driver);
+    assertNull(exportedMethods.findTopmostPopup(DialogBox.class.getName()));
+    assertThrows(NoSuchElementException.class,
+        () -> new DialogFinder().atTop().withDriver(driver).done());
+
     //find, click button
     GwtWidget.find(Button.class, driver).withText("Open dialog").done().click();
 
@@ -150,6 +230,15 @@ public class SimpleWidgetTest {
     Dialog headingDialog = new DialogFinder().withHeading("Heading").withDriver(driver).done();
     assertNotNull(headingDialog);
     assertEquals("Heading Text For Dialog", headingDialog.getHeadingText());
+    Dialog exactHeadingDialog = new DialogFinder()
+        .withHeading("Heading Text For Dialog", Match.EXACT).withDriver(driver).done();
+    assertEquals(headingDialog.getElement(), exactHeadingDialog.getElement());
+    DialogFinder fromPanel = new DialogFinder().withHeading("Heading");
+    fromPanel.withElement(panel1.getElement()).withDriver(driver);
+    Dialog fromPanelDialog = fromPanel.done();
+    assertEquals(headingDialog.getElement(), fromPanelDialog.getElement());
+    assertEquals("Heading Text For Dialog",
+        headingDialog.readProperties(WidgetProperty.TEXT).getString(0, WidgetProperty.TEXT));
 
     //find dialog by top
     Dialog topDialog = new DialogFinder().atTop().withDriver(driver).done();
@@ -157,6 +246,8 @@ public class SimpleWidgetTest {
     assertEquals("Heading Text For Dialog", topDialog.getHeadingText());
 
     assertEquals(topDialog.getElement(), headingDialog.getElement());
+    assertEquals(topDialog.getElement(),
+        exportedMethods.findTopmostPopup(PopupPanel.class.getName()));
 
     Point initialHeaderLoc = topDialog.getElement().getLocation();
 
@@ -206,6 +297,13 @@ public class SimpleWidgetTest {
         rootPanel.getElement(), Label.class.getName());
     assertEquals("testing", new GwtLabel(driver, firstLabel).getText());
 
+    // page through the labels, in the same order as finding them all
+    List<WebElement> allLabels = exportedMethods.findDescendantWidgetElementsOfType(
+        rootPanel.getElement(), Label.class.getName());
+    List<WebElement> page = exportedMethods.findDescendantWidgetElementsOfTypeInRange(
+        rootPanel.getElement(), Label.class.getName(), 1, 2);
+    assertEquals(allLabels.subList(1, 3), page);
+
     // let's validate direct children fetch; only looking in panel2
     WidgetContainer panel2 = rootPanel.findWidget(By.cssSelector(".panel2"))
         .as(WidgetContainer.class);
@@ -214,12 +312,300 @@ public class SimpleWidgetTest {
     exportedMethods.instanceofwidget(panel2Children.get(0), Label.class.getName());
     exportedMethods.instanceofwidget(panel2Children.get(1), Button.class.getName());
     exportedMethods.instanceofwidget(panel2Children.get(2), FlowPanel.class.getName());
+    assertEquals(panel2Children.subList(0, 1),
+        exportedMethods.getChildrenOfType(panel2.getElement(), Label.class.getName()));
+
+    // filter several elements at once, dropping duplicates
+    List<WebElement> candidates = new ArrayList<>(panel2Children);
+    candidates.add(panel2Children.get(0));
+    candidates.add(0, panel2.getElement().findElement(By.xpath(".//input")));
+    assertEquals(panel2Children.subList(0, 1),
+        exportedMethods.filterWidgets(candidates, Label.class.getName()));
+    assertEquals(panel2Children.subList(0, 1),
+        panel2.getElement().findElements(GwtBy.childrenWidgets(Label.class)));
+
+    // interfaces implemented by widgets can be checked by name too
+    assertTrue(exportedMethods.instanceofwidget(panel2Children.get(1), HasText.class.getName()));
+    assertFalse(exportedMethods.instanceofwidget(panel2Children.get(2), HasText.class.getName()));
+    assertEquals(4, panel2.getElement().findElements(
+        GwtBy.descendantWidget(HasText.class.getName())).size());
 
     // similar test as above, but using the ByDescendantWidget
     List<WebElement> elements = driver.findElements(GwtBy.descendantWidget(Label.class));
     // all labels
     assertEquals(5, elements.size());
     System.out.println(elements.size());
+
+    // only the label directly in the root panel
+    assertEquals(1, driver.findElements(GwtBy.descendantWidget(Label.class).withMaxDepth(1))
+        .size());
+    // the panel nested in panel2 isn't found
+    assertEquals(3, driver.findElements(GwtBy.descendantWidget(FlowPanel.class)).size());
+    assertEquals(2, driver.findElements(GwtBy.descendantWidget(FlowPanel.class).stopAtMatch())
+        .size());
+    // only the labels which aren't in panel1 or panel2
+    assertEquals(2, driver.findElements(GwtBy.descendantWidget(Label.class)
+        .skipDescendantsOf(FlowPanel.class)).size());
+
+    // the same kinds of searches, written as widget selectors
+    assertEquals(panel2Children.subList(0, 1),
+        driver.findElements(GwtBy.widgetSelector("FlowPanel.panel2 > Label")));
+    assertEquals(2, driver.findElements(GwtBy.widgetSelector("FlowPanel.panel2 Label")).size());
+    // the panel nested in panel2 is also a match, but its label is only found once
+    assertEquals(3, driver.findElements(GwtBy.widgetSelector("FlowPanel Label")).size());
+    assertEquals(panel2Children.get(1),
+        driver.findElement(GwtBy.widgetSelector(".panel2 > :text(\"child2\")")));
+    assertEquals(1, panel2.getElement().findElements(GwtBy.widgetSelector("TextBox")).size());
+    assertEquals(panel2Children.subList(0, 1), driver.findElements(GwtBy.fasterChained(
+        By.cssSelector(".panel2"), GwtBy.widgetSelector("Label:contains(\"child1\")"))));
+
+    // like separate findElement calls, only the first element at each step is searched from
+    By firstPanelFirst = GwtBy.cheatingChained(By.cssSelector(".panel1, .panel2"),
+        By.xpath(".//*[text()='child1']"));
+    assertThrows(NoSuchElementException.class, () -> driver.findElement(firstPanelFirst));
+    assertEquals(1, driver.findElements(firstPanelFirst).size());
+
+    // finding widgets by their text
+    assertEquals(panel2Children.subList(0, 1),
+        driver.findElements(GwtBy.widgetWithText(Label.class, "child1", Match.EXACT)));
+    assertTrue(driver.findElements(GwtBy.widgetWithText(Label.class, "child", Match.EXACT))
+        .isEmpty());
+    assertEquals(2, driver.findElements(GwtBy.widgetWithText(Label.class, "child", Match.CONTAINS))
+        .size());
+    assertEquals(panel2Children.subList(0, 2), panel2.getElement().findElements(
+        GwtBy.widgetWithText(Widget.class, "^child\\d$", Match.REGEX)));
+    assertEquals("Not a direct child", driver.findElement(
+        GwtBy.widgetWithText(Label.class, " Not a   direct\nchild ", Match.NORMALIZED)).getText());
+    // a panel has the text of all the widgets inside of it
+    assertTrue(driver.findElements(GwtBy.widgetWithText(FlowPanel.class, "child1", Match.EXACT))
+        .isEmpty());
+    assertEquals(panel2.getElement(),
+        driver.findElement(GwtBy.widgetWithText(FlowPanel.class, "child1", Match.CONTAINS)));
+    // the button's text is split across elements
+    assertEquals("Open dialog", driver.findElement(
+        GwtBy.widgetWithText(ButtonBase.class, "Open dialog", Match.EXACT)).getText());
+
+    // only visible widgets, checked during the same search
+    assertEquals(5, driver.findElements(GwtBy.descendantWidget(Label.class).onlyVisible()).size());
+    ((JavascriptExecutor) driver).executeScript("arguments[0].style.display = 'none';",
+        panel2.getElement());
+    assertEquals(3, driver.findElements(GwtBy.descendantWidget(Label.class).onlyVisible()).size());
+    assertEquals(5, driver.findElements(GwtBy.descendantWidget(Label.class)
+        .require(Visibility.ATTACHED)).size());
+    assertTrue(panel2.getElement().findElements(GwtBy.descendantWidget().onlyVisible()).isEmpty());
+    assertEquals(1, driver.findElements(GwtBy.fasterChained(By.cssSelector(".panel1"),
+        GwtBy.descendantWidget(Label.class).onlyVisible())).size());
+    // a panel with no size of its own can still hold visible widgets
+    ((JavascriptExecutor) driver).executeScript("arguments[0].style.position = 'absolute';"
+        + "arguments[0].style.width = '0px'; arguments[0].style.height = '0px';"
+        + "arguments[0].firstChild.style.position = 'absolute';",
+        panel1.getElement());
+    assertEquals(0, panel1.getElement().getSize().getWidth());
+    assertEquals(1, panel1.getElement().findElements(GwtBy.descendantWidget(TextBox.class)
+        .onlyVisible()).size());
+    assertEquals(3, driver.findElements(GwtBy.descendantWidget(Label.class).onlyVisible()).size());
+  }
+
+  @Test
+  void testBatch() {
+    driver.get(url);
+
+    WidgetContainer rootPanel = new GwtRootPanel(driver);
+    WidgetContainer panel2 = rootPanel.findWidget(By.cssSelector(".panel2"))
+        .as(WidgetContainer.class);
+
+    ClientMethodsBatch batch = ClientMethodsFactory.createBatch(driver);
+    ExportedMethods exportedMethods = batch.create(ExportedMethods.class);
+    assertNull(exportedMethods.getChildren(panel2.getElement()));
+    assertFalse(exportedMethods.isWidget(panel2.getElement()));
+    exportedMethods.getContainingWidgetClass(panel2.getElement());
+    assertEquals(3, batch.size());
+
+    List<Object> results = batch.execute();
+    assertEquals(0, batch.size());
+    assertEquals(3, results.size());
+    assertEquals(3, ((List<?>) results.get(0)).size());
+    assertEquals(true, results.get(1));
+    assertEquals(FlowPanel.class.getName(), results.get(2));
+  }
+
+  @Test
+  void testTypedReturnValues() {
+    driver.get(url);
+
+    WidgetContainer rootPanel = new GwtRootPanel(driver);
+
+    // primitives are sent as json values, not strings
+    Object isWidget = ModuleUtilities.executeSyncExportedFunction(
+        ExportedMethods.class.getName() + "::isWidget", driver, rootPanel.getElement());
+    assertEquals(Boolean.TRUE, isWidget);
+  }
+
+  @Test
+  void testMethodMetrics() {
+    driver.get(url);
+
+    WidgetContainer rootPanel = new GwtRootPanel(driver);
+    MethodMetrics.reset(driver);
+
+    ExportedMethods exportedMethods = ClientMethodsFactory.create(ExportedMethods.class, driver);
+    exportedMethods.isWidget(rootPanel.getElement());
+    exportedMethods.isWidget(rootPanel.getElement());
+
+    Map<String, MethodMetrics> metrics = MethodMetrics.get(driver);
+    MethodMetrics isWidget = metrics.get(ExportedMethods.class.getName() + "::isWidget");
+    assertNotNull(isWidget);
+    assertEquals(2, isWidget.getInvocations());
+    assertEquals(0, isWidget.getErrors());
+    assertTrue(isWidget.getMaxMillis() <= isWidget.getTotalMillis());
+  }
+
+  @Test
+  void testRoundTripBudget() {
+    driver.get(url);
+
+    // bind to the module first, so that looking for it isn't counted
+    WidgetContainer rootPanel = new GwtRootPanel(driver);
+    ClientMethodsFactory.create(ExportedMethods.class, driver).isWidget(rootPanel.getElement());
+
+    try (RoundTripRecorder recorder = RoundTripRecorder.start()) {
+      List<WebElement> labels = driver.findElements(GwtBy.descendantWidget(Label.class));
+      assertEquals(5, labels.size());
+
+      recorder.assertRoundTripsAtMost(1);
+      assertEquals(1, recorder.getLocatorStats().get("ByDescendantWidget").getRoundTrips());
+      assertThrows(AssertionError.class, () -> recorder.assertRoundTripsAtMost(0));
+    }
+
+    // a chain of xpath/css and widget locators runs in one round trip
+    try (RoundTripRecorder recorder = RoundTripRecorder.start()) {
+      WebElement label = driver.findElement(GwtBy.fasterChained(By.cssSelector(".panel2"),
+          By.xpath(".//*"), GwtBy.isWidget(Label.class)));
+      assertEquals("child1", label.getText());
+      List<WebElement> labels = driver.findElements(GwtBy.cheatingChained(By.tagName("body"),
+          GwtBy.descendantWidget(Label.class)));
+      assertEquals(5, labels.size());
+
+      recorder.assertRoundTripsAtMost(2);
+    }
+
+    // finding widgets and reading their properties also runs in one round trip
+    List<WebElement> widgets = rootPanel.findWidgets(By.xpath(".//*")).stream()
+        .map(GwtWidget::getElement).collect(Collectors.toList());
+    try (RoundTripRecorder recorder = RoundTripRecorder.start()) {
+      WidgetProperties properties = rootPanel.readProperties(By.xpath(".//*"),
+          WidgetProperty.TYPE, WidgetProperty.TEXT);
+      assertEquals(widgets, properties.getWidgets().stream().map(GwtWidget::getElement)
+          .collect(Collectors.toList()));
+      assertEquals(Label.class.getName(), properties.getString(0, WidgetProperty.TYPE));
+      assertEquals("testing", properties.getString(0, WidgetProperty.TEXT));
+
+      recorder.assertRoundTripsAtMost(1);
+    }
+
+    // a snapshot of the widget tree answers any number of questions in one round trip
+    List<WebElement> labels = driver.findElements(GwtBy.descendantWidget(Label.class));
+    try (RoundTripRecorder recorder = RoundTripRecorder.start()) {
+      WidgetTreeSnapshot snapshot = WidgetTreeSnapshot.take(driver, null, true);
+      List<Node> labelNodes = snapshot.getRoot().getDescendants(Label.class);
+      assertEquals(labels, labelNodes.stream().map(Node::getElement).collect(Collectors.toList()));
+      Node child1 = labelNodes.stream().filter(node -> "child1".equals(node.getText()))
+          .findFirst().get();
+      assertTrue(child1.isVisible());
+      assertEquals(FlowPanel.class.getName(), child1.getParent().getClassName());
+      assertEquals(Collections.singletonList(child1), child1.getParent().getChildren(Label.class));
+      assertSame(snapshot.getRoot(), child1.getNearest(RootPanel.class));
+      assertSame(child1, snapshot.getNode(labels.get(labelNodes.indexOf(child1))));
+
+      recorder.assertRoundTripsAtMost(1);
+    }
+
+    // leaving out the elements makes the snapshot smaller, they are fetched only when needed
+    long eagerPayloadSize;
+    try (RoundTripRecorder recorder = RoundTripRecorder.start()) {
+      WidgetTreeSnapshot.take(driver);
+      eagerPayloadSize = recorder.getPayloadSize();
+    }
+    try (RoundTripRecorder recorder = RoundTripRecorder.start()) {
+      WidgetTreeSnapshot snapshot = WidgetTreeSnapshot.take(driver, null, false, true);
+      assertTrue(recorder.getPayloadSize() < eagerPayloadSize);
+      List<Node> labelNodes = snapshot.getRoot().getDescendants(Label.class);
+      snapshot.resolveElements(labelNodes);
+      assertEquals(labels, labelNodes.stream().map(Node::getElement).collect(Collectors.toList()));
+      assertSame(labelNodes.get(0), snapshot.getNode(labels.get(0)));
+
+      recorder.assertRoundTripsAtMost(2);
+    }
+
+    // after changing the page, only the changes are fetched
+    WidgetTreeSnapshot snapshot = WidgetTreeSnapshot.take(driver, null, true);
+    Node root = snapshot.getRoot();
+    int widgetCount = snapshot.getNodes().size();
+    GwtWidget.find(Button.class, driver).withText("Open dialog").done().click();
+    try (RoundTripRecorder recorder = RoundTripRecorder.start()) {
+      snapshot.update();
+      recorder.assertRoundTripsAtMost(1);
+    }
+    assertSame(root, snapshot.getRoot());
+    assertEquals(widgetCount + 2, snapshot.getNodes().size());
+    Node dialog = root.getDescendants(DialogBox.class).get(0);
+    assertSame(root, dialog.getParent());
+    assertEquals("asdf", dialog.getDescendants(HTML.class).get(0).getText());
+    assertEquals(driver.findElement(GwtBy.descendantWidget(DialogBox.class)), dialog.getElement());
+
+    // widget handles only send numbers back and forth, until an element is needed
+    try (RoundTripRecorder recorder = RoundTripRecorder.start()) {
+      WidgetHandle dialogHandle = WidgetHandle.findAll(driver, DialogBox.class).get(0);
+      WidgetHandle html = dialogHandle.findDescendants(HTML.class).get(0);
+      assertEquals(dialogHandle, html.getNearest(DialogBox.class));
+      List<WidgetHandle> labelHandles = WidgetHandle.findAll(driver, Label.class);
+      assertTrue(labelHandles.contains(html));
+      WidgetHandle.resolveElements(labelHandles);
+      assertEquals(driver.findElements(GwtBy.descendantWidget(Label.class)),
+          labelHandles.stream().map(WidgetHandle::getElement).collect(Collectors.toList()));
+
+      recorder.assertRoundTripsAtMost(6);
+    }
+    assertEquals(dialog.getElement(), WidgetHandle.of(driver, dialog.getElement()).getElement());
+
+    // handles from before the page was reloaded don't refer to whatever widget now has that number
+    WidgetHandle label = WidgetHandle.findAll(driver, Label.class).get(0);
+    driver.get(url);
+    assertFalse(WidgetHandle.findAll(driver, Label.class).contains(label));
+    assertThrows(StaleElementReferenceException.class, label::getElement);
+    assertThrows(StaleElementReferenceException.class, () -> label.getChildren(Widget.class));
+    assertThrows(StaleElementReferenceException.class, () -> label.getNearest(Widget.class));
+  }
+
+  @Test
+  void testWidgetIndex() {
+    driver.get(url);
+
+    ExportedMethods exportedMethods = ClientMethodsFactory.create(ExportedMethods.class, driver);
+    List<WebElement> walked = driver.findElements(GwtBy.descendantWidget(Label.class));
+    // not every browser can report added and removed elements
+    assumeTrue(exportedMethods.enableWidgetIndex());
+
+    // the same labels are found from the index, in the same order
+    List<WebElement> indexed = driver.findElements(GwtBy.descendantWidget(Label.class));
+    assertEquals(walked, indexed);
+    assertEquals(walked.subList(1, 3), exportedMethods.findDescendantWidgetElementsOfTypeInRange(
+        driver.findElement(By.tagName("body")), Label.class.getName(), 1, 2));
+
+    // widgets attached afterwards are indexed too
+    assertTrue(driver.findElements(GwtBy.descendantWidget(DialogBox.class)).isEmpty());
+    GwtWidget.find(Button.class, driver).withText("Open dialog").done().click();
+    WebElement dialog = driver.findElement(GwtBy.descendantWidget(DialogBox.class));
+    // the caption is also an HTML, but isn't one of the dialog's child widgets
+    assertEquals(1, dialog.findElements(GwtBy.descendantWidget(HTML.class)).size());
+    // the HTML in the dialog is also a Label
+    List<WebElement> indexedAfterDialog =
+        driver.findElements(GwtBy.descendantWidget(Label.class));
+    assertEquals(indexed.size() + 1, indexedAfterDialog.size());
+
+    exportedMethods.disableWidgetIndex();
+    assertEquals(1, driver.findElements(GwtBy.descendantWidget(DialogBox.class)).size());
+    assertEquals(indexedAfterDialog, driver.findElements(GwtBy.descendantWidget(Label.class)));
   }
 
   @Test
@@ -23,9 +23,12 @@ import com.google.gwt.event.dom.client.ClickEvent;
 import com.google.gwt.uibinder.client.UiBinder;
 import com.google.gwt.uibinder.client.UiField;
 import com.google.gwt.uibinder.client.UiHandler;
+import com.google.gwt.user.client.ui.CheckBox;
 import com.google.gwt.user.client.ui.DialogBox;
 import com.google.gwt.user.client.ui.HTML;
+import com.google.gwt.user.client.ui.IntegerBox;
 import com.google.gwt.user.client.ui.Label;
+import com.google.gwt.user.client.ui.ListBox;
 import com.google.gwt.user.client.ui.RootPanel;
 import com.google.gwt.user.client.ui.TextBox;
 import com.google.gwt.user.client.ui.Widget;
@@ -39,6 +42,12 @@ public class SimpleWidgetsEP implements EntryPoint {
 
   @UiField
   TextBox textBox;
+  @UiField
+  IntegerBox integerBox;
+  @UiField
+  CheckBox checkBox;
+  @UiField
+  ListBox listBox;
 
   @Override
   public void onModuleLoad() {
@@ -47,6 +56,10 @@ public class SimpleWidgetsEP implements EntryPoint {
 
     // add UiBinder UI
     RootPanel.get().add(uiBinder.createAndBindUi(this));
+    integerBox.setValue(42);
+    checkBox.setValue(true);
+    listBox.setItemSelected(0, true);
+    listBox.setItemSelected(2, true);
   }
 
   @UiHandler("openDialog")